@@ -0,0 +1,259 @@
+package com.example.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Scripted load against a running application: registers {@code users} accounts through
+ * {@code /api/auth/register} (falling back to {@code /api/auth/login}), then each user loops over a
+ * weighted mix of blocking chat, streamed chat, RAG queries and embeddings until {@code seconds} have
+ * passed. Reports throughput, p50/p99 latency and error rates per operation, plus time to first event for
+ * streams. Run the application against {@link StubOpenAiServer} to keep it offline.
+ * <p>
+ * {@code java -cp benchmarks/target/benchmarks.jar com.example.benchmark.ApiLoadTest [--base-url=http://localhost:8080]
+ * [--users=50] [--seconds=60] [--mix=chat:4,stream:4,rag:2,embed:0] [--think-ms=0]}
+ */
+public class ApiLoadTest {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final String PASSWORD = "LoadTest#2024";
+    private static final List<String> QUESTIONS = List.of(
+            "How do I rotate the signing key without logging everyone out?",
+            "Summarise the retention policy for chat history.",
+            "Which endpoints require the ADMIN role?",
+            "What happens when the embedding provider rate limits us?");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value: " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        URI baseUri = URI.create(options.getOrDefault("base-url", "http://localhost:8080"));
+        int users = Integer.parseInt(options.getOrDefault("users", "50"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+        Duration think = Duration.ofMillis(Long.parseLong(options.getOrDefault("think-ms", "0")));
+        Map<Operation, Integer> mix = mix(options.getOrDefault("mix", "chat:4,stream:4,rag:2,embed:0"));
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build()) {
+            String run = UUID.randomUUID().toString().substring(0, 8);
+            List<String> tokens = login(client, baseUri, run, users);
+            System.out.printf("%d of %d users logged in%n", tokens.size(), users);
+            if (tokens.isEmpty()) return;
+
+            Map<Operation, Stats> stats = new LinkedHashMap<>();
+            mix.keySet().forEach(operation -> stats.put(operation, new Stats()));
+            Stats firstEvent = new Stats();
+            long start = System.nanoTime();
+            long deadline = start + Duration.ofSeconds(seconds).toNanos();
+            try (ExecutorService driver = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < tokens.size(); i++) {
+                    String token = tokens.get(i);
+                    String sessionId = "load-" + run + "-" + i;
+                    driver.execute(() -> {
+                        while (System.nanoTime() < deadline) {
+                            Operation operation = pick(mix);
+                            try {
+                                operation.send(client, baseUri, token, sessionId, stats.get(operation), firstEvent);
+                                if (think.isPositive()) Thread.sleep(think);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                        }
+                    });
+                }
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-8s %9s %9s %10s %10s %8s  %s%n", "op", "requests", "req/s", "p50 ms", "p99 ms", "errors", "by status");
+            stats.forEach((operation, s) -> s.print(operation.name().toLowerCase(), elapsed));
+            if (firstEvent.requests() > 0) firstEvent.print("ttfe", elapsed);
+        }
+    }
+
+    private static List<String> login(HttpClient client, URI baseUri, String run, int users) {
+        ConcurrentLinkedQueue<String> tokens = new ConcurrentLinkedQueue<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                String username = "load" + run + i;
+                executor.execute(() -> {
+                    try {
+                        HttpResponse<String> response = post(client, baseUri.resolve("/api/auth/register"), null,
+                                Map.of("username", username, "email", username + "@example.com", "password", PASSWORD));
+                        if (response.statusCode() >= 400) {
+                            response = post(client, baseUri.resolve("/api/auth/login"), null,
+                                    Map.of("username", username, "password", PASSWORD));
+                        }
+                        String token = response.statusCode() < 400 ? accessToken(MAPPER.readTree(response.body())) : null;
+                        if (token != null) tokens.add(token);
+                        else System.err.printf("login %s failed: %d %s%n", username, response.statusCode(), response.body());
+                    } catch (IOException e) {
+                        System.err.printf("login %s failed: %s%n", username, e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * The access token wherever the response envelope nests it; a field named like a refresh token is never taken.
+     */
+    private static String accessToken(JsonNode node) {
+        for (String name : List.of("accessToken", "access_token", "token")) {
+            JsonNode found = node.findValue(name);
+            if (found != null && found.isTextual()) return found.asText();
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey().toLowerCase();
+            if (field.getValue().isTextual() && name.contains("token") && !name.contains("refresh")) return field.getValue().asText();
+            if (field.getValue().isContainerNode()) {
+                String nested = accessToken(field.getValue());
+                if (nested != null) return nested;
+            }
+        }
+        return null;
+    }
+
+    private static HttpResponse<String> post(HttpClient client, URI uri, String token, Object body)
+            throws IOException, InterruptedException {
+        return client.send(request(uri, token, body).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest.Builder request(URI uri, String token, Object body) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)));
+        if (token != null) builder.header("Authorization", "Bearer " + token);
+        return builder;
+    }
+
+    private static Map<Operation, Integer> mix(String spec) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split(":");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("Empty mix: " + spec);
+        return mix;
+    }
+
+    private static Operation pick(Map<Operation, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) return entry.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    private static String question() {
+        return QUESTIONS.get(ThreadLocalRandom.current().nextInt(QUESTIONS.size()));
+    }
+
+    private enum Operation {
+        CHAT, STREAM, RAG, EMBED;
+
+        void send(HttpClient client, URI baseUri, String token, String sessionId, Stats stats, Stats firstEvent)
+                throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                int status;
+                if (this == STREAM) {
+                    HttpResponse<Stream<String>> response = client.send(
+                            request(baseUri.resolve("/api/ai/chat/stream"), token, Map.of("message", question(), "sessionId", sessionId))
+                                    .header("Accept", "text/event-stream").build(),
+                            HttpResponse.BodyHandlers.ofLines());
+                    status = response.statusCode();
+                    try (Stream<String> lines = response.body()) {
+                        Iterator<String> events = lines.iterator();
+                        boolean seen = false;
+                        while (events.hasNext()) {
+                            String line = events.next();
+                            if (!seen && line.startsWith("data:")) {
+                                seen = true;
+                                if (status < 400) firstEvent.record(status, System.nanoTime() - start);
+                            }
+                        }
+                    }
+                } else {
+                    HttpResponse<Void> response = client.send(switch (this) {
+                        case CHAT -> request(baseUri.resolve("/api/ai/chat"), token, Map.of("message", question(), "sessionId", sessionId)).build();
+                        case RAG -> request(baseUri.resolve("/api/ai/rag/query"), token, Map.of("question", question())).build();
+                        default -> request(baseUri.resolve("/api/ai/embed"), token, Map.of("text", question())).build();
+                    }, HttpResponse.BodyHandlers.discarding());
+                    status = response.statusCode();
+                }
+                stats.record(status, System.nanoTime() - start);
+            } catch (IOException e) {
+                stats.record(-1, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static final class Stats {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+        void record(int status, long nanos) {
+            statuses.computeIfAbsent(status, key -> new AtomicLong()).incrementAndGet();
+            if (status >= 200 && status < 400) latencies.add(nanos);
+        }
+
+        long requests() {
+            return statuses.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+
+        void print(String name, double elapsedSeconds) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            long requests = requests();
+            long errors = requests - sorted.length;
+            Map<String, Long> byStatus = new LinkedHashMap<>();
+            statuses.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry ->
+                    byStatus.put(entry.getKey() < 0 ? "io" : String.valueOf(entry.getKey()), entry.getValue().get()));
+            System.out.printf("%-8s %9d %9.1f %10.1f %10.1f %7.2f%%  %s%n", name, requests, requests / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    requests == 0 ? 0 : 100.0 * errors / requests, byStatus);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) return Double.NaN;
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
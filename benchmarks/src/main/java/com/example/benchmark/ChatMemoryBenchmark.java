@@ -0,0 +1,99 @@
+package com.example.benchmark;
+
+import com.example.memory.PersistentChatMemory;
+import com.example.memory.StoredChatMessageRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PersistentChatMemory} under concurrent readers and writers: 4 threads append turns while 12
+ * threads read session windows, spread over {@code sessions} sessions (1 = every thread contends on one
+ * session). The repository is an in-process stub that accepts every write, so only the hot tier and the
+ * write-behind queue are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatMemoryBenchmark {
+
+    @Param({"1", "1000"})
+    public int sessions;
+
+    @Param({"20"})
+    public int lastN;
+
+    private PersistentChatMemory memory;
+    private List<Message> turn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        memory = PersistentChatMemory.builder(stubRepository())
+                .maxMessages(100)
+                .maxTokens(8000)
+                .maxBytes(64L * 1024 * 1024)
+                .idleTtl(Duration.ofMinutes(30))
+                .retention(Duration.ofDays(7))
+                .flushInterval(Duration.ofMillis(500))
+                .batchSize(100)
+                .build();
+        turn = List.of(new UserMessage("How do I rotate the signing key without logging everyone out?"),
+                new AssistantMessage("Publish the new key alongside the old one, sign new tokens with it, and drop the "
+                        + "old key once every token it signed has expired."));
+        for (int i = 0; i < sessions; i++) memory.add(session(i), turn);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        memory.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public void add() {
+        memory.add(randomSession(), turn);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(12)
+    public List<Message> get() {
+        return memory.get(randomSession(), lastN);
+    }
+
+    private String randomSession() {
+        return session(ThreadLocalRandom.current().nextInt(sessions));
+    }
+
+    private static String session(int i) {
+        return "session-" + i;
+    }
+
+    /**
+     * Repository that stores nothing: loads find an empty session, writes and deletes succeed.
+     */
+    private static StoredChatMessageRepository stubRepository() {
+        return (StoredChatMessageRepository) Proxy.newProxyInstance(StoredChatMessageRepository.class.getClassLoader(),
+                new Class<?>[]{StoredChatMessageRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findMaxSeq" -> 0L;
+                    case "findBySessionIdOrderBySeqDesc" -> List.of();
+                    case "saveAll" -> args[0];
+                    case "deleteBySession", "deleteBySessionUpTo", "deleteSessionsIdleSince" -> 0;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubChatMessageRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
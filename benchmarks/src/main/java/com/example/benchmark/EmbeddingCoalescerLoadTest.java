@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import com.example.embedding.BatchingEmbeddingModel;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test for {@link BatchingEmbeddingModel}: concurrent single-input callers against a stub model that
+ * behaves like the OpenAI endpoint behind a small connection pool (fixed per-call latency, small per-input
+ * cost, limited parallel calls). Prints throughput and upstream call counts with and without coalescing.
+ * <p>
+ * {@code java -cp benchmarks/target/benchmarks.jar com.example.benchmark.EmbeddingCoalescerLoadTest [callers] [seconds]}
+ */
+public class EmbeddingCoalescerLoadTest {
+
+    private static final Duration CALL_LATENCY = Duration.ofMillis(40);
+    private static final Duration PER_INPUT_LATENCY = Duration.ofMillis(1);
+    private static final int CONNECTIONS = 8;
+    private static final int DIMENSIONS = 1536;
+
+    public static void main(String[] args) throws Exception {
+        int callers = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        SlowEmbeddingModel direct = new SlowEmbeddingModel();
+        report("direct", callers, seconds, direct, direct);
+
+        SlowEmbeddingModel upstream = new SlowEmbeddingModel();
+        try (BatchingEmbeddingModel batching = BatchingEmbeddingModel.builder(upstream)
+                .window(Duration.ofMillis(5))
+                .maxBatchSize(64)
+                .maxInFlight(CONNECTIONS)
+                .build()) {
+            report("coalesced", callers, seconds, batching, upstream);
+        }
+    }
+
+    private static void report(String name, int callers, int seconds, EmbeddingModel model, SlowEmbeddingModel upstream)
+            throws InterruptedException {
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int caller = 0; caller < callers; caller++) {
+                int id = caller;
+                executor.execute(() -> {
+                    long sequence = 0;
+                    while (System.nanoTime() < deadline) {
+                        model.embed("caller-" + id + "-text-" + sequence++);
+                        completed.incrementAndGet();
+                    }
+                });
+            }
+        }
+        System.out.printf("%-10s callers=%d throughput=%.0f embeds/s upstream calls=%d avg batch=%.1f%n",
+                name, callers, completed.get() / (double) seconds, upstream.calls.get(),
+                upstream.inputs.get() / (double) Math.max(1, upstream.calls.get()));
+    }
+
+    private static final class SlowEmbeddingModel implements EmbeddingModel {
+
+        private final Semaphore connections = new Semaphore(CONNECTIONS);
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong inputs = new AtomicLong();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            connections.acquireUninterruptibly();
+            try {
+                calls.incrementAndGet();
+                inputs.addAndGet(request.getInstructions().size());
+                LockSupport.parkNanos(CALL_LATENCY.toNanos() + PER_INPUT_LATENCY.toNanos() * request.getInstructions().size());
+                List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+                for (int i = 0; i < request.getInstructions().size(); i++) embeddings.add(new Embedding(new float[DIMENSIONS], i));
+                return new EmbeddingResponse(embeddings);
+            } finally {
+                connections.release();
+            }
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
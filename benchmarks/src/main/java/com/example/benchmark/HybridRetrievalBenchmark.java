@@ -0,0 +1,148 @@
+package com.example.benchmark;
+
+import com.example.vectorstore.HnswVectorStore;
+import com.example.vectorstore.HybridVectorStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vector-only search against {@link HybridVectorStore} (BM25 + vector, reciprocal rank fusion) on a corpus
+ * where every document carries a unique error code and part number. Document and query embeddings only
+ * encode the topic, as real embedding models largely do for opaque identifiers, so each query
+ * ("What does ERR-1234 mean?") has exactly one relevant document among ~400 same-topic neighbours, usually
+ * outside the vector candidates; the hybrid store finds it through its keyword index and fetches it from
+ * the hnsw store by id. Precision@k and MRR for both stores (and for the hybrid store with a similarity
+ * threshold, which scores those keyword-only matches exactly) are printed during setup; latency comes from
+ * the JMH run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class HybridRetrievalBenchmark {
+
+    private static final int QUERY_COUNT = 500;
+    private static final int TOPICS = 50;
+    private static final int[] CUTOFFS = {1, 3, 5, 10};
+    private static final String[] SUBSYSTEMS = {"ingestion", "billing", "auth", "storage", "network", "scheduler",
+            "search", "export", "gateway", "cache"};
+
+    @Param({"20000"})
+    public int corpusSize;
+
+    @Param({"384"})
+    public int dimensions;
+
+    @Param({"3"})
+    public int topK;
+
+    private HnswVectorStore vector;
+    private HybridVectorStore hybrid;
+    private List<SearchRequest> queries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(23);
+        StubEmbeddingModel embeddingModel = new StubEmbeddingModel(dimensions);
+        float[][] topics = new float[TOPICS][];
+        for (int t = 0; t < TOPICS; t++) topics[t] = StubEmbeddingModel.randomVector(random, dimensions);
+        List<Document> documents = new ArrayList<>(corpusSize);
+        int[] topicOf = new int[corpusSize];
+        for (int i = 0; i < corpusSize; i++) {
+            topicOf[i] = random.nextInt(TOPICS);
+            String subsystem = SUBSYSTEMS[topicOf[i] % SUBSYSTEMS.length];
+            String text = "Troubleshooting %s: error ERR-%d is raised when part PN-%05d.A fails its %s health check; restart the %s worker."
+                    .formatted(subsystem, i, i * 7, subsystem, subsystem);
+            embeddingModel.register(text, near(topics[topicOf[i]], random));
+            documents.add(Document.builder().id(Integer.toString(i)).text(text).build());
+        }
+        int[] expected = new int[QUERY_COUNT];
+        queries = new ArrayList<>(QUERY_COUNT);
+        List<SearchRequest> evaluation = new ArrayList<>(QUERY_COUNT);
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            expected[q] = random.nextInt(corpusSize);
+            String text = q % 2 == 0 ? "What does error ERR-%d mean?".formatted(expected[q])
+                    : "Which check fails for part PN-%05d.A?".formatted(expected[q] * 7);
+            embeddingModel.register(text, near(topics[topicOf[expected[q]]], random));
+            queries.add(SearchRequest.builder().query(text).topK(topK).build());
+            evaluation.add(SearchRequest.builder().query(text).topK(CUTOFFS[CUTOFFS.length - 1]).build());
+        }
+
+        vector = HnswVectorStore.builder(embeddingModel).build();
+        for (int from = 0; from < documents.size(); from += 1000) {
+            vector.add(documents.subList(from, Math.min(documents.size(), from + 1000)));
+        }
+        hybrid = HybridVectorStore.builder(vector).build();
+        hybrid.reindex(documents);
+
+        report("vector", vector::similaritySearch, evaluation, expected);
+        report("hybrid", hybrid::similaritySearch, evaluation, expected);
+        report("hybrid>0.1", request -> hybrid.similaritySearch(SearchRequest.builder()
+                .query(request.getQuery())
+                .topK(request.getTopK())
+                .similarityThreshold(0.1)
+                .build()), evaluation, expected);
+        System.out.printf("bm25 postings=%d bytes for %d documents%n", hybrid.lexicalIndex().postingsBytes(), corpusSize);
+    }
+
+    @Benchmark
+    public List<Document> vectorSearch() {
+        return vector.similaritySearch(nextQuery());
+    }
+
+    @Benchmark
+    public List<Document> hybridSearch() {
+        return hybrid.similaritySearch(nextQuery());
+    }
+
+    private SearchRequest nextQuery() {
+        return queries.get(ThreadLocalRandom.current().nextInt(queries.size()));
+    }
+
+    /**
+     * With one relevant document per query, precision@k is hits / (queries * k) and recall@k is hits / queries.
+     */
+    private static void report(String name, Search search, List<SearchRequest> evaluation, int[] expected) {
+        int[] hits = new int[CUTOFFS.length];
+        double reciprocalRanks = 0;
+        for (int q = 0; q < evaluation.size(); q++) {
+            List<Document> results = search.run(evaluation.get(q));
+            String relevant = Integer.toString(expected[q]);
+            for (int rank = 0; rank < results.size(); rank++) {
+                if (!results.get(rank).getId().equals(relevant)) continue;
+                reciprocalRanks += 1.0 / (rank + 1);
+                for (int c = 0; c < CUTOFFS.length; c++) {
+                    if (rank < CUTOFFS[c]) hits[c]++;
+                }
+                break;
+            }
+        }
+        StringBuilder line = new StringBuilder(System.lineSeparator()).append("%-10s".formatted(name));
+        for (int c = 0; c < CUTOFFS.length; c++) {
+            line.append(" P@%d=%.4f R@%d=%.4f".formatted(CUTOFFS[c], (double) hits[c] / (evaluation.size() * CUTOFFS[c]),
+                    CUTOFFS[c], (double) hits[c] / evaluation.size()));
+        }
+        line.append(" MRR=%.4f".formatted(reciprocalRanks / evaluation.size()));
+        System.out.println(line);
+    }
+
+    private static float[] near(float[] center, SplittableRandom random) {
+        float[] vector = new float[center.length];
+        for (int i = 0; i < center.length; i++) vector[i] = center[i] + (float) random.nextGaussian() * 0.6f;
+        return vector;
+    }
+
+    @FunctionalInterface
+    private interface Search {
+        List<Document> run(SearchRequest request);
+    }
+}
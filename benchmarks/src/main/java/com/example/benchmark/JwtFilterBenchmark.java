@@ -0,0 +1,80 @@
+package com.example.benchmark;
+
+import com.example.observability.PipelineMetrics;
+import com.example.security.CachingJwtAuthenticationFilter;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-request latency of the JWT filter with the token and principal caches enabled versus disabled
+ * (every request verifies the signature and loads the user). The user lookup is a stub that waits
+ * {@code lookupMicros} like a round trip to the user table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "3cfa76ef14937c1c0ea519f8fc057a80fcd04a7420f8e8bcd0a7567c272e007b";
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    @Param({"200"})
+    public long lookupMicros;
+
+    private CachingJwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserDetailsService users = username -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(lookupMicros));
+            return User.withUsername(username).password("{noop}secret").roles("USER").build();
+        };
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        filter = new CachingJwtAuthenticationFilter(users, SECRET, cached ? 100_000 : 0,
+                cached ? Duration.ofSeconds(30) : Duration.ZERO,
+                beans.getBeanProvider(MeterRegistry.class), beans.getBeanProvider(PipelineMetrics.class));
+        String token = Jwts.builder()
+                .subject("alice")
+                .issuedAt(new Date())
+                .expiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+        authorization = "Bearer " + token;
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ai/chat/history/s1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
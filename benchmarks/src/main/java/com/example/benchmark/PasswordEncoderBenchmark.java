@@ -0,0 +1,62 @@
+package com.example.benchmark;
+
+import com.example.security.OffloadedPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt encode and match at the cost the service would use. {@code strength=0} calibrates it the way
+ * {@code app.security.password.strength=0} does at startup (about 250 ms per hash on this machine); a fixed
+ * cost pins it for comparisons across machines. {@code offloadedMatches} adds the hop to the hashing pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"0", "10"})
+    public int strength;
+
+    private OffloadedPasswordEncoder offloaded;
+    private BCryptPasswordEncoder bcrypt;
+    private String encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        offloaded = OffloadedPasswordEncoder.builder()
+                .targetLatency(Duration.ofMillis(250))
+                .strength(strength)
+                .build();
+        bcrypt = new BCryptPasswordEncoder(offloaded.strength());
+        encoded = bcrypt.encode(PASSWORD);
+        System.out.printf("%nBCrypt cost %d%n", offloaded.strength());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        offloaded.close();
+    }
+
+    @Benchmark
+    public String encode() {
+        return bcrypt.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return bcrypt.matches(PASSWORD, encoded);
+    }
+
+    @Benchmark
+    public boolean offloadedMatches() {
+        return offloaded.matches(PASSWORD, encoded);
+    }
+}
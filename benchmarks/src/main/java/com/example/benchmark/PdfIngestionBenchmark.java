@@ -0,0 +1,106 @@
+package com.example.benchmark;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU-bound stages of PDF ingestion, done the way {@code PdfIngestionPipeline} does them: page-by-page
+ * text extraction with {@link PDFTextStripper} and chunking with {@link TokenTextSplitter}. The PDF is
+ * generated in memory (60 lines of prose per page), so the run needs no input files and no embedding model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfIngestionBenchmark {
+
+    private static final int LINES_PER_PAGE = 60;
+    private static final String[] WORDS = {"the", "ingestion", "pipeline", "splits", "each", "page", "into", "chunks",
+            "before", "embedding", "vector", "store", "query", "latency", "tenant", "retrieval", "model", "index",
+            "document", "metadata", "throughput", "batch", "worker", "queue"};
+
+    @Param({"10", "100"})
+    public int pages;
+
+    private byte[] pdf;
+    private List<Document> pageDocuments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(11);
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(12);
+                    content.newLineAtOffset(50, 800);
+                    for (int line = 0; line < LINES_PER_PAGE; line++) {
+                        content.showText(sentence(random));
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            pdf = out.toByteArray();
+        }
+        pageDocuments = extractPages();
+    }
+
+    @Benchmark
+    public List<Document> extractPages() throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            List<Document> documents = new ArrayList<>(document.getNumberOfPages());
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                documents.add(new Document(stripper.getText(document), Map.of("page_number", page)));
+            }
+            return documents;
+        }
+    }
+
+    @Benchmark
+    public List<Document> split() {
+        return new TokenTextSplitter().apply(pageDocuments);
+    }
+
+    @Benchmark
+    public List<Document> extractAndSplit() throws IOException {
+        return new TokenTextSplitter().apply(extractPages());
+    }
+
+    private static String sentence(SplittableRandom random) {
+        StringBuilder sentence = new StringBuilder();
+        for (int word = 0; word < 14; word++) {
+            if (word > 0) sentence.append(' ');
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+}
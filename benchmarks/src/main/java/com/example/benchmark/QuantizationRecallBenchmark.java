@@ -0,0 +1,140 @@
+package com.example.benchmark;
+
+import com.example.vectorstore.MappedVectorStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Memory and recall@k of the quantized {@link MappedVectorStore} modes against the exact scan over the
+ * same mapped vectors. Memory and recall are printed during setup; latency comes from the JMH run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class QuantizationRecallBenchmark {
+
+    private static final int QUERY_COUNT = 200;
+    private static final int CLUSTERS = 256;
+
+    @Param({"50000"})
+    public int corpusSize;
+
+    @Param({"1536"})
+    public int dimensions;
+
+    @Param({"INT8", "PQ"})
+    public MappedVectorStore.Quantization quantization;
+
+    @Param({"10"})
+    public int topK;
+
+    private Path exactDirectory;
+    private Path quantizedDirectory;
+    private MappedVectorStore exact;
+    private MappedVectorStore quantized;
+    private List<SearchRequest> queries;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(11);
+        StubEmbeddingModel embeddingModel = new StubEmbeddingModel(dimensions);
+        float[][] centers = new float[CLUSTERS][];
+        for (int c = 0; c < CLUSTERS; c++) centers[c] = StubEmbeddingModel.randomVector(random, dimensions);
+        List<Document> documents = new ArrayList<>(corpusSize);
+        for (int i = 0; i < corpusSize; i++) {
+            String text = "doc-" + i;
+            embeddingModel.register(text, near(centers[random.nextInt(CLUSTERS)], random));
+            documents.add(Document.builder().id(Integer.toString(i)).text(text).build());
+        }
+        queries = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String text = "query-" + i;
+            embeddingModel.register(text, near(centers[random.nextInt(CLUSTERS)], random));
+            queries.add(SearchRequest.builder().query(text).topK(topK).build());
+        }
+
+        exactDirectory = Files.createTempDirectory("exact-store");
+        quantizedDirectory = Files.createTempDirectory("quantized-store");
+        exact = MappedVectorStore.builder(embeddingModel, exactDirectory).build();
+        quantized = MappedVectorStore.builder(embeddingModel, quantizedDirectory).quantization(quantization).build();
+        for (int from = 0; from < documents.size(); from += 1000) {
+            List<Document> batch = documents.subList(from, Math.min(documents.size(), from + 1000));
+            exact.add(batch);
+            quantized.add(batch);
+        }
+        // PQ trains on a background thread once enough vectors arrive; measure only after it has finished.
+        if (!quantized.awaitQuantizer(Duration.ofMinutes(10))) {
+            throw new IllegalStateException(quantization + " codes are not in place; is corpusSize below the PQ training size?");
+        }
+
+        double recall = 0;
+        for (SearchRequest query : queries) {
+            Set<String> expected = ids(exact.similaritySearch(query));
+            Set<String> actual = ids(quantized.similaritySearch(query));
+            actual.retainAll(expected);
+            recall += (double) actual.size() / expected.size();
+        }
+        MappedVectorStore.QuantizationStats stats = quantized.quantizationStats();
+        System.out.printf("%n%s corpus=%d dims=%d codes=%d bytes full=%d bytes saved=%.1f%% recall@%d=%.4f%n",
+                quantization, corpusSize, dimensions, stats.codeBytes(), stats.fullPrecisionBytes(),
+                stats.savedRatio() * 100, topK, recall / queries.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        exact.close();
+        quantized.close();
+        deleteRecursively(exactDirectory);
+        deleteRecursively(quantizedDirectory);
+    }
+
+    @Benchmark
+    public List<Document> exactSearch() {
+        return exact.similaritySearch(nextQuery());
+    }
+
+    @Benchmark
+    public List<Document> quantizedSearch() {
+        return quantized.similaritySearch(nextQuery());
+    }
+
+    private SearchRequest nextQuery() {
+        return queries.get(ThreadLocalRandom.current().nextInt(queries.size()));
+    }
+
+    private static float[] near(float[] center, SplittableRandom random) {
+        float[] vector = new float[center.length];
+        for (int i = 0; i < center.length; i++) vector[i] = center[i] + (float) random.nextGaussian() * 0.6f;
+        return vector;
+    }
+
+    private static Set<String> ids(List<Document> documents) {
+        Set<String> ids = new HashSet<>();
+        for (Document document : documents) ids.add(document.getId());
+        return ids;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.utility.Ai;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trips of the chat and RAG response bodies. Sample responses are built reflectively from
+ * the records' components: every string is {@code textLength} characters and every list holds
+ * {@code listSize} elements, so the benchmark keeps compiling as the records gain fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private static final int MAX_DEPTH = 4;
+
+    @Param({"200", "2000"})
+    public int textLength;
+
+    @Param({"5"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private Ai.ChatResponse chatResponse;
+    private Ai.RagResponse ragResponse;
+    private byte[] chatJson;
+    private byte[] ragJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        chatResponse = (Ai.ChatResponse) sample(Ai.ChatResponse.class, 0);
+        ragResponse = (Ai.RagResponse) sample(Ai.RagResponse.class, 0);
+        chatJson = objectMapper.writeValueAsBytes(chatResponse);
+        ragJson = objectMapper.writeValueAsBytes(ragResponse);
+        System.out.printf("%nChatResponse %d bytes, RagResponse %d bytes%n", chatJson.length, ragJson.length);
+    }
+
+    @Benchmark
+    public byte[] serializeChatResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(chatResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeRagResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(ragResponse);
+    }
+
+    @Benchmark
+    public Ai.ChatResponse deserializeChatResponse() throws IOException {
+        return objectMapper.readValue(chatJson, Ai.ChatResponse.class);
+    }
+
+    @Benchmark
+    public Ai.RagResponse deserializeRagResponse() throws IOException {
+        return objectMapper.readValue(ragJson, Ai.RagResponse.class);
+    }
+
+    private Object sample(Type type, int depth) {
+        Class<?> raw = type instanceof ParameterizedType parameterized ? (Class<?>) parameterized.getRawType() : (Class<?>) type;
+        if (raw == String.class || raw == Object.class) return text();
+        if (raw == int.class || raw == Integer.class) return 42;
+        if (raw == long.class || raw == Long.class) return 42L;
+        if (raw == double.class || raw == Double.class) return 0.87;
+        if (raw == float.class || raw == Float.class) return 0.87f;
+        if (raw == boolean.class || raw == Boolean.class) return true;
+        if (raw == Instant.class) return Instant.now();
+        if (raw == LocalDateTime.class) return LocalDateTime.now();
+        if (raw == UUID.class) return UUID.randomUUID();
+        if (raw.isEnum()) return raw.getEnumConstants()[0];
+        if (depth >= MAX_DEPTH) return null;
+        if (Collection.class.isAssignableFrom(raw)) {
+            List<Object> list = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) list.add(sample(typeArgument(type, 0), depth + 1));
+            return list;
+        }
+        if (Map.class.isAssignableFrom(raw)) return Map.of("key", sample(typeArgument(type, 1), depth + 1));
+        if (raw.isRecord()) {
+            RecordComponent[] components = raw.getRecordComponents();
+            Class<?>[] parameterTypes = new Class<?>[components.length];
+            Object[] values = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                parameterTypes[i] = components[i].getType();
+                values[i] = sample(components[i].getGenericType(), depth + 1);
+            }
+            try {
+                Constructor<?> constructor = raw.getDeclaredConstructor(parameterTypes);
+                constructor.setAccessible(true);
+                return constructor.newInstance(values);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot build a sample " + raw.getName(), e);
+            }
+        }
+        return null;
+    }
+
+    private String text() {
+        StringBuilder text = new StringBuilder(textLength);
+        while (text.length() < textLength) text.append("Retrieval augmented answer text. ");
+        return text.substring(0, textLength);
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType parameterized && parameterized.getActualTypeArguments().length > index) {
+            Type argument = parameterized.getActualTypeArguments()[index];
+            if (argument instanceof Class<?> || argument instanceof ParameterizedType) return argument;
+        }
+        return String.class;
+    }
+}
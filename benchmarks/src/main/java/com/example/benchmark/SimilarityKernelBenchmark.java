@@ -0,0 +1,80 @@
+package com.example.benchmark;
+
+import com.example.vectorstore.ScalarSimilarityKernel;
+import com.example.vectorstore.SimilarityKernel;
+import com.example.vectorstore.VectorApiSimilarityKernel;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the scalar and Vector API similarity kernels per embedding dimension.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SimilarityKernelBenchmark {
+
+    @Param({"384", "768", "1536", "3072"})
+    public int dimensions;
+
+    @Param({"scalar", "vector"})
+    public String kernelType;
+
+    private SimilarityKernel kernel;
+    private float[] a;
+    private float[] b;
+    private byte[] codes;
+    private Arena arena;
+    private MemorySegment segment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        kernel = "vector".equals(kernelType) ? new VectorApiSimilarityKernel() : new ScalarSimilarityKernel();
+        SplittableRandom random = new SplittableRandom(5);
+        a = StubEmbeddingModel.randomVector(random, dimensions);
+        b = StubEmbeddingModel.randomVector(random, dimensions);
+        codes = new byte[dimensions];
+        for (int i = 0; i < dimensions; i++) codes[i] = (byte) random.nextInt(-127, 128);
+        arena = Arena.ofConfined();
+        segment = arena.allocate((long) dimensions * Float.BYTES, Float.BYTES);
+        for (int i = 0; i < dimensions; i++) segment.setAtIndex(ValueLayout.JAVA_FLOAT, i, b[i]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        arena.close();
+    }
+
+    @Benchmark
+    public float dot() {
+        return kernel.dot(a, b);
+    }
+
+    @Benchmark
+    public float cosine() {
+        return kernel.cosine(a, b);
+    }
+
+    @Benchmark
+    public float l2() {
+        return kernel.l2(a, b);
+    }
+
+    @Benchmark
+    public float dotMapped() {
+        return kernel.dot(a, segment, 0);
+    }
+
+    @Benchmark
+    public float dotInt8() {
+        return kernel.dot(a, codes, 0, dimensions);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Offline {@link EmbeddingModel}: returns pre-registered vectors for known texts and a deterministic
+ * pseudo-random vector derived from the text hash otherwise.
+ */
+public class StubEmbeddingModel implements EmbeddingModel {
+
+    private final int dimensions;
+    private final Map<String, float[]> vectors = new ConcurrentHashMap<>();
+
+    public StubEmbeddingModel(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public void register(String text, float[] vector) {
+        vectors.put(text, vector);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (int i = 0; i < request.getInstructions().size(); i++) {
+            embeddings.add(new Embedding(vectorFor(request.getInstructions().get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vectorFor(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private float[] vectorFor(String text) {
+        float[] registered = vectors.get(text);
+        return registered != null ? registered : randomVector(new SplittableRandom(text.hashCode()), dimensions);
+    }
+
+    public static float[] randomVector(SplittableRandom random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) vector[i] = (float) random.nextGaussian();
+        return vector;
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OpenAI-compatible stub for offline load tests; point {@code spring.ai.openai.base-url} at it. Serves
+ * {@code /v1/chat/completions} (blocking and streamed) and {@code /v1/embeddings}. Latency before the
+ * first token (or the embedding response) is log-normal with the configured median and p99, streams then
+ * emit {@code completion-tokens} tokens at {@code tokens-per-second}, and a configurable share of requests
+ * fails with 429 (with {@code Retry-After}) or 500 before any latency is spent. Embeddings are derived
+ * from the input text, so identical inputs get identical vectors.
+ * <p>
+ * {@code java -cp benchmarks/target/benchmarks.jar com.example.benchmark.StubOpenAiServer [--port=8089]
+ * [--median-ms=400] [--p99-ms=2000] [--tokens-per-second=50] [--completion-tokens=200]
+ * [--error-429-rate=0.01] [--error-5xx-rate=0.005] [--dimensions=1536]}
+ */
+public final class StubOpenAiServer implements AutoCloseable {
+
+    private static final double Z_99 = 2.3263;
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final double sigma;
+    private final Map<String, AtomicLong> counts = new LinkedHashMap<>();
+
+    private StubOpenAiServer(Options options) throws IOException {
+        this.options = options;
+        this.sigma = options.p99Millis() > options.medianMillis()
+                ? Math.log((double) options.p99Millis() / options.medianMillis()) / Z_99 : 0;
+        for (String key : List.of("chat", "stream", "embeddings", "429", "5xx")) counts.put(key, new AtomicLong());
+        this.server = HttpServer.create(new InetSocketAddress(options.port()), 1024);
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::chat));
+        server.createContext("/v1/embeddings", exchange -> handle(exchange, this::embeddings));
+        server.start();
+    }
+
+    public static StubOpenAiServer start(Options options) throws IOException {
+        return new StubOpenAiServer(options);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        StubOpenAiServer server = start(options);
+        System.out.printf("Stub OpenAI server on http://localhost:%d (%s)%n", server.port(), options);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Served " + server.counts());
+            server.close();
+        }));
+        Thread.currentThread().join();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public Map<String, Long> counts() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        counts.forEach((key, count) -> snapshot.put(key, count.get()));
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < options.error429Rate()) {
+                counts.get("429").incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendJson(exchange, 429, error("Rate limit reached for requests", "requests", "rate_limit_exceeded"));
+                return;
+            }
+            if (roll < options.error429Rate() + options.error5xxRate()) {
+                counts.get("5xx").incrementAndGet();
+                sendJson(exchange, 500, error("The server had an error while processing your request", "server_error", null));
+                return;
+            }
+            handler.handle(exchange, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void chat(HttpExchange exchange, JsonNode body) throws IOException, InterruptedException {
+        String model = body.path("model").asText("gpt-4o");
+        int promptTokens = Math.max(1, body.path("messages").toString().length() / 4);
+        int completionTokens = options.completionTokens();
+        Duration perToken = Duration.ofNanos((long) (1e9 / options.tokensPerSecond()));
+        Thread.sleep(sampleLatency());
+        if (!body.path("stream").asBoolean()) {
+            counts.get("chat").incrementAndGet();
+            Thread.sleep(perToken.multipliedBy(completionTokens));
+            Map<String, Object> response = envelope("chat.completion", model);
+            response.put("choices", List.of(Map.of("index", 0, "finish_reason", "stop",
+                    "message", Map.of("role", "assistant", "content", text(completionTokens)))));
+            response.put("usage", usage(promptTokens, completionTokens));
+            sendJson(exchange, 200, response);
+            return;
+        }
+        counts.get("stream").incrementAndGet();
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int token = 0; token < completionTokens; token++) {
+            if (token > 0) Thread.sleep(perToken);
+            Map<String, Object> delta = new HashMap<>();
+            if (token == 0) delta.put("role", "assistant");
+            delta.put("content", word(token) + " ");
+            sendEvent(out, chunk(model, delta, null));
+        }
+        sendEvent(out, chunk(model, Map.of(), "stop"));
+        if (body.path("stream_options").path("include_usage").asBoolean()) {
+            Map<String, Object> usage = envelope("chat.completion.chunk", model);
+            usage.put("choices", List.of());
+            usage.put("usage", usage(promptTokens, completionTokens));
+            sendEvent(out, usage);
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void embeddings(HttpExchange exchange, JsonNode body) throws IOException, InterruptedException {
+        counts.get("embeddings").incrementAndGet();
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = body.path("input");
+        if (input.isArray()) input.forEach(node -> inputs.add(node.asText()));
+        else inputs.add(input.asText());
+        int dimensions = body.path("dimensions").asInt(options.dimensions());
+        Thread.sleep(sampleLatency());
+        List<Map<String, Object>> data = new ArrayList<>(inputs.size());
+        int tokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            data.add(Map.of("object", "embedding", "index", i, "embedding", vector(inputs.get(i), dimensions)));
+            tokens += Math.max(1, inputs.get(i).length() / 4);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("object", "list");
+        response.put("data", data);
+        response.put("model", body.path("model").asText("text-embedding-3-small"));
+        response.put("usage", Map.of("prompt_tokens", tokens, "total_tokens", tokens));
+        sendJson(exchange, 200, response);
+    }
+
+    private Duration sampleLatency() {
+        double millis = options.medianMillis() * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) (millis * 1_000_000));
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void sendEvent(OutputStream out, Object data) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static Map<String, Object> envelope(String object, String model) {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("id", "chatcmpl-stub");
+        envelope.put("object", object);
+        envelope.put("created", Instant.now().getEpochSecond());
+        envelope.put("model", model);
+        return envelope;
+    }
+
+    private static Map<String, Object> chunk(String model, Map<String, Object> delta, String finishReason) {
+        Map<String, Object> choice = new HashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> chunk = envelope("chat.completion.chunk", model);
+        chunk.put("choices", List.of(choice));
+        return chunk;
+    }
+
+    private static Map<String, Object> usage(int promptTokens, int completionTokens) {
+        return Map.of("prompt_tokens", promptTokens, "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens);
+    }
+
+    private static Map<String, Object> error(String message, String type, String code) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("message", message);
+        error.put("type", type);
+        error.put("code", code);
+        return Map.of("error", error);
+    }
+
+    private static String text(int tokens) {
+        StringBuilder text = new StringBuilder();
+        for (int token = 0; token < tokens; token++) text.append(word(token)).append(' ');
+        return text.toString().trim();
+    }
+
+    private static String word(int token) {
+        return token % 12 == 11 ? "stub." : "token" + token;
+    }
+
+    private static float[] vector(String text, int dimensions) {
+        SplittableRandom random = new SplittableRandom(text.hashCode());
+        float[] vector = new float[dimensions];
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) vector[i] *= scale;
+        return vector;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, JsonNode body) throws IOException, InterruptedException;
+    }
+
+    public record Options(int port, long medianMillis, long p99Millis, double tokensPerSecond, int completionTokens,
+                          double error429Rate, double error5xxRate, int dimensions) {
+
+        public static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value: " + arg);
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            return new Options(
+                    Integer.parseInt(values.getOrDefault("port", "8089")),
+                    Long.parseLong(values.getOrDefault("median-ms", "400")),
+                    Long.parseLong(values.getOrDefault("p99-ms", "2000")),
+                    Double.parseDouble(values.getOrDefault("tokens-per-second", "50")),
+                    Integer.parseInt(values.getOrDefault("completion-tokens", "200")),
+                    Double.parseDouble(values.getOrDefault("error-429-rate", "0.01")),
+                    Double.parseDouble(values.getOrDefault("error-5xx-rate", "0.005")),
+                    Integer.parseInt(values.getOrDefault("dimensions", "1536")));
+        }
+    }
+}
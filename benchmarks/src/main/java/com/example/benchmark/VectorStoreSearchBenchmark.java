@@ -0,0 +1,105 @@
+package com.example.benchmark;
+
+import com.example.vectorstore.HnswVectorStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recall-vs-latency comparison of {@link HnswVectorStore} against the brute-force {@link SimpleVectorStore}.
+ * Recall@k of each HNSW configuration is printed during setup; latency comes from the JMH run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class VectorStoreSearchBenchmark {
+
+    private static final int QUERY_COUNT = 200;
+
+    @Param({"10000", "100000"})
+    public int corpusSize;
+
+    @Param({"384", "1536"})
+    public int dimensions;
+
+    @Param({"16"})
+    public int m;
+
+    @Param({"32", "64", "128", "256"})
+    public int efSearch;
+
+    @Param({"10"})
+    public int topK;
+
+    private VectorStore simple;
+    private HnswVectorStore hnsw;
+    private List<SearchRequest> queries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        StubEmbeddingModel embeddingModel = new StubEmbeddingModel(dimensions);
+        List<Document> documents = new ArrayList<>(corpusSize);
+        for (int i = 0; i < corpusSize; i++) {
+            String text = "doc-" + i;
+            embeddingModel.register(text, StubEmbeddingModel.randomVector(random, dimensions));
+            documents.add(Document.builder().id(Integer.toString(i)).text(text).build());
+        }
+        queries = new ArrayList<>(QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String text = "query-" + i;
+            embeddingModel.register(text, StubEmbeddingModel.randomVector(random, dimensions));
+            queries.add(SearchRequest.builder().query(text).topK(topK).build());
+        }
+
+        simple = SimpleVectorStore.builder(embeddingModel).build();
+        simple.add(documents);
+        long start = System.nanoTime();
+        hnsw = HnswVectorStore.builder(embeddingModel).m(m).efConstruction(200).efSearch(efSearch).build();
+        hnsw.add(documents);
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        double recall = 0;
+        for (SearchRequest query : queries) {
+            Set<String> exact = ids(simple.similaritySearch(query));
+            Set<String> approximate = ids(hnsw.similaritySearch(query));
+            approximate.retainAll(exact);
+            recall += (double) approximate.size() / exact.size();
+        }
+        System.out.printf("%nHNSW corpus=%d dims=%d M=%d efSearch=%d build=%dms recall@%d=%.4f%n",
+                corpusSize, dimensions, m, efSearch, buildMillis, topK, recall / queries.size());
+    }
+
+    @Benchmark
+    public List<Document> simpleSearch() {
+        return simple.similaritySearch(nextQuery());
+    }
+
+    @Benchmark
+    public List<Document> hnswSearch() {
+        return hnsw.similaritySearch(nextQuery());
+    }
+
+    private SearchRequest nextQuery() {
+        return queries.get(ThreadLocalRandom.current().nextInt(queries.size()));
+    }
+
+    private static Set<String> ids(List<Document> documents) {
+        Set<String> ids = new HashSet<>();
+        for (Document document : documents) ids.add(document.getId());
+        return ids;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.benchmark;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent in-flight requests through embedded Tomcat with the default platform pool (200 threads)
+ * versus the virtual-thread executor that {@code spring.threads.virtual.enabled=true} installs. The
+ * handler blocks for a fixed time like a handler waiting on a chat completion.
+ * <p>
+ * {@code java -cp benchmarks/target/benchmarks.jar com.example.benchmark.VirtualThreadLoadTest [clients] [seconds] [latencyMs]}
+ */
+public class VirtualThreadLoadTest {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Duration latency = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 2000);
+
+        run("platform", false, clients, seconds, latency);
+        run("virtual", true, clients, seconds, latency);
+    }
+
+    private static void run(String name, boolean virtual, int clients, int seconds, Duration latency) throws Exception {
+        SlowServlet servlet = new SlowServlet(latency);
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat-" + name).toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        AbstractProtocol<?> protocol = (AbstractProtocol<?>) connector.getProtocolHandler();
+        if (virtual) protocol.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+        else protocol.setMaxThreads(PLATFORM_THREADS);
+        protocol.setMaxConnections(clients * 2);
+        protocol.setAcceptCount(clients);
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "slow", servlet);
+        context.addServletMappingDecoded("/", "slow");
+        tomcat.start();
+
+        try {
+            URI uri = URI.create("http://localhost:" + connector.getLocalPort() + "/");
+            AtomicLong completed = new AtomicLong();
+            ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+                 ExecutorService driver = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    driver.execute(() -> {
+                        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(2)).build();
+                        while (System.nanoTime() < deadline) {
+                            long start = System.nanoTime();
+                            try {
+                                client.send(request, HttpResponse.BodyHandlers.discarding());
+                                latencies.add(System.nanoTime() - start);
+                                completed.incrementAndGet();
+                            } catch (IOException e) {
+                                return;
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                        }
+                    });
+                }
+            }
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-8s clients=%d handler=%dms max in-flight=%d throughput=%.1f req/s p50=%dms p99=%dms%n",
+                    name, clients, latency.toMillis(), servlet.maxInFlight.get(), completed.get() / (double) seconds,
+                    percentile(sorted, 0.5), percentile(sorted, 0.99));
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) return 0;
+        return Duration.ofNanos(sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))]).toMillis();
+    }
+
+    private static final class SlowServlet extends HttpServlet {
+
+        private final Duration latency;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private SlowServlet(Duration latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            response.setContentType("text/plain");
+            response.getWriter().write("ok");
+        }
+    }
+}
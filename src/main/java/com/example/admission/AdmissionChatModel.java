@@ -0,0 +1,58 @@
+package com.example.admission;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link ChatModel} decorator that takes an {@link AdmissionScheduler} slot for every upstream call. The
+ * class is the caller's {@link Priority#current()}, else {@link Priority#CHAT} for blocking calls and
+ * {@link Priority#INTERACTIVE_STREAM} for streams. A stream holds its slot until it terminates or is
+ * cancelled and reports its time to first token as the call latency; a slot granted after the subscriber
+ * already cancelled is released straight away.
+ */
+public class AdmissionChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final AdmissionScheduler scheduler;
+
+    public AdmissionChatModel(ChatModel delegate, AdmissionScheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        AdmissionScheduler.Permit permit = scheduler.acquire(Priority.current().orElse(Priority.CHAT));
+        try {
+            ChatResponse response = delegate.call(prompt);
+            permit.release(null);
+            return response;
+        } catch (RuntimeException e) {
+            permit.release(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // the scoped priority is only visible on the assembling thread, so read it before subscribing
+        Priority priority = Priority.current().orElse(Priority.INTERACTIVE_STREAM);
+        return Mono.fromCallable(() -> scheduler.acquire(priority))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnDiscard(AdmissionScheduler.Permit.class, permit -> permit.release(null))
+                .flatMapMany(permit -> delegate.stream(prompt)
+                        .doOnNext(response -> permit.responded())
+                        .doOnError(permit::release)
+                        .doFinally(signal -> permit.release(null)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.admission;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} decorator that takes an {@link AdmissionScheduler} slot for every upstream call,
+ * classed by the caller's {@link Priority#current()} or {@link Priority#RAG_QUERY} when none is bound.
+ */
+public class AdmissionEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final AdmissionScheduler scheduler;
+
+    public AdmissionEmbeddingModel(EmbeddingModel delegate, AdmissionScheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        AdmissionScheduler.Permit permit = scheduler.acquire(Priority.current().orElse(Priority.RAG_QUERY));
+        try {
+            EmbeddingResponse response = delegate.call(request);
+            permit.release(null);
+            return response;
+        } catch (RuntimeException e) {
+            permit.release(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
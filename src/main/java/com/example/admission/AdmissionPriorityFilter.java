@@ -0,0 +1,57 @@
+package com.example.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binds the request's {@link Priority} for the duration of the request so that model calls made on its
+ * behalf are queued in the right class. The first matching path prefix wins; unmatched requests run
+ * unbound and fall back to each model decorator's default.
+ */
+@Component
+public class AdmissionPriorityFilter extends OncePerRequestFilter {
+
+    private static final Map<String, Priority> PRIORITIES = new LinkedHashMap<>();
+
+    static {
+        PRIORITIES.put("/api/ai/chat/stream", Priority.INTERACTIVE_STREAM);
+        PRIORITIES.put("/api/ai/chat", Priority.CHAT);
+        PRIORITIES.put("/api/ai/rag/query", Priority.RAG_QUERY);
+        PRIORITIES.put("/api/ai/rag/ingest", Priority.INGESTION);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request.getRequestURI().substring(request.getContextPath().length()));
+        if (priority == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            priority.callChecked(() -> {
+                chain.doFilter(request, response);
+                return null;
+            });
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private static Priority priorityOf(String path) {
+        for (Map.Entry<String, Priority> entry : PRIORITIES.entrySet()) {
+            if (path.startsWith(entry.getKey())) return entry.getValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.admission;
+
+import com.example.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Global in-flight limit for upstream model calls with weighted-fair queueing between {@link Priority}
+ * classes. A freed slot goes to the waiting class with the lowest stride-scheduling pass, so while classes
+ * compete each receives slots in proportion to its weight and none starves. The limit itself adapts by
+ * AIMD: every call that succeeds under {@code latencyTarget} adds {@code 1 / limit} (about one slot per
+ * round of calls), a rate-limit response or a slow call halves it, at most once per {@code backoffInterval}.
+ */
+@Slf4j
+public class AdmissionScheduler {
+
+    private static final long STRIDE_BASE = 1L << 20;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, ClassQueue> queues = new EnumMap<>(Priority.class);
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final long latencyTargetNanos;
+    private final long backoffIntervalNanos;
+    private double limit;
+    private int inFlight;
+    private long lastDecrease = System.nanoTime();
+    private long virtualTime;
+
+    private AdmissionScheduler(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.maxQueued = builder.maxQueued;
+        this.maxWait = builder.maxWait;
+        this.latencyTargetNanos = builder.latencyTarget.toNanos();
+        this.backoffIntervalNanos = builder.backoffInterval.toNanos();
+        this.limit = builder.initialLimit;
+        for (Priority priority : Priority.values()) {
+            ClassQueue queue = new ClassQueue(STRIDE_BASE / priority.weight());
+            queues.put(priority, queue);
+            if (builder.meterRegistry != null) {
+                queue.queueTime = Timer.builder("admission.queue.time")
+                        .description("Time upstream model calls waited for an admission slot")
+                        .tag("priority", priority.name().toLowerCase())
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(builder.meterRegistry);
+                Gauge.builder("admission.queued", queue, q -> q.waiters.size())
+                        .tag("priority", priority.name().toLowerCase())
+                        .register(builder.meterRegistry);
+            }
+        }
+        if (builder.meterRegistry != null) {
+            Gauge.builder("admission.limit", this, scheduler -> scheduler.limit).register(builder.meterRegistry);
+            Gauge.builder("admission.in.flight", this, scheduler -> scheduler.inFlight).register(builder.meterRegistry);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Waits for a slot for {@code priority}; the returned permit must be released exactly once.
+     */
+    public Permit acquire(Priority priority) {
+        ClassQueue queue = queues.get(priority);
+        long start = System.nanoTime();
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && nobodyWaiting()) {
+                inFlight++;
+                record(queue, start);
+                return new Permit(start);
+            }
+            if (queue.waiters.size() >= maxQueued) {
+                throw new ServiceOverloadedException("Upstream model queue is full for " + priority, maxWait);
+            }
+            if (queue.waiters.isEmpty()) queue.pass = Math.max(queue.pass, virtualTime);
+            waiter = new Waiter();
+            queue.waiters.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        boolean admitted;
+        try {
+            admitted = waiter.admitted.await(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            lock.lock();
+            try {
+                // the slot may have been granted between the timeout and taking the lock
+                if (!queue.waiters.remove(waiter)) admitted = true;
+            } finally {
+                lock.unlock();
+            }
+            if (!admitted) {
+                if (Thread.currentThread().isInterrupted()) throw new IllegalStateException("Interrupted while waiting for admission");
+                throw new ServiceOverloadedException("Timed out waiting for an upstream model slot", maxWait);
+            }
+        }
+        record(queue, start);
+        return new Permit(System.nanoTime());
+    }
+
+    public double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit, Throwable error) {
+        long latency = (permit.respondedAt != 0 ? permit.respondedAt : System.nanoTime()) - permit.admittedAt;
+        lock.lock();
+        try {
+            inFlight--;
+            if (error != null && isRateLimited(error) || error == null && latency > latencyTargetNanos) {
+                long now = System.nanoTime();
+                if (now - lastDecrease > backoffIntervalNanos) {
+                    limit = Math.max(minLimit, limit / 2);
+                    lastDecrease = now;
+                    log.debug("Admission limit decreased to {}", (int) limit);
+                }
+            } else if (error == null) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        while (inFlight < (int) limit) {
+            ClassQueue next = null;
+            for (ClassQueue queue : queues.values()) {
+                if (!queue.waiters.isEmpty() && (next == null || queue.pass < next.pass)) next = queue;
+            }
+            if (next == null) return;
+            Waiter waiter = next.waiters.pollFirst();
+            virtualTime = next.pass;
+            next.pass += next.stride;
+            inFlight++;
+            waiter.admitted.countDown();
+        }
+    }
+
+    private boolean nobodyWaiting() {
+        for (ClassQueue queue : queues.values()) {
+            if (!queue.waiters.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    private static void record(ClassQueue queue, long start) {
+        if (queue.queueTime != null) queue.queueTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean isRateLimited(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException.TooManyRequests) return true;
+            if (cause.getMessage() != null && cause.getMessage().contains("429")) return true;
+        }
+        return false;
+    }
+
+    public final class Permit {
+
+        private final long admittedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile long respondedAt;
+
+        private Permit(long admittedAt) {
+            this.admittedAt = admittedAt;
+        }
+
+        /**
+         * Marks the first response byte of a streamed call, so the latency fed to the limit is time to first
+         * token rather than the length of the whole answer.
+         */
+        public void responded() {
+            if (respondedAt == 0) respondedAt = System.nanoTime();
+        }
+
+        public void release(Throwable error) {
+            if (released.compareAndSet(false, true)) AdmissionScheduler.this.release(this, error);
+        }
+    }
+
+    private static final class ClassQueue {
+
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final long stride;
+        private long pass;
+        private Timer queueTime;
+
+        private ClassQueue(long stride) {
+            this.stride = stride;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final CountDownLatch admitted = new CountDownLatch(1);
+    }
+
+    public static final class Builder {
+
+        private int initialLimit = 16;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        private int maxQueued = 1000;
+        private Duration maxWait = Duration.ofSeconds(30);
+        private Duration latencyTarget = Duration.ofSeconds(20);
+        private Duration backoffInterval = Duration.ofSeconds(2);
+        private MeterRegistry meterRegistry;
+
+        private Builder() {
+        }
+
+        public Builder limits(int initialLimit, int minLimit, int maxLimit) {
+            if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+                throw new IllegalArgumentException("Admission limits must satisfy 1 <= min <= initial <= max");
+            }
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public Builder maxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        public Builder maxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public Builder latencyTarget(Duration latencyTarget) {
+            this.latencyTarget = latencyTarget;
+            return this;
+        }
+
+        public Builder backoffInterval(Duration backoffInterval) {
+            this.backoffInterval = backoffInterval;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public AdmissionScheduler build() {
+            return new AdmissionScheduler(this);
+        }
+    }
+}
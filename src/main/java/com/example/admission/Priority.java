@@ -0,0 +1,44 @@
+package com.example.admission;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Admission classes for upstream model calls, highest first. The weight is the share of freed slots a
+ * class receives while several classes are waiting.
+ */
+public enum Priority {
+
+    INTERACTIVE_STREAM(8),
+    CHAT(4),
+    RAG_QUERY(2),
+    INGESTION(1);
+
+    private static final ScopedValue<Priority> CURRENT = ScopedValue.newInstance();
+
+    private final int weight;
+
+    Priority(int weight) {
+        this.weight = weight;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    public static Optional<Priority> current() {
+        return CURRENT.isBound() ? Optional.of(CURRENT.get()) : Optional.empty();
+    }
+
+    public <T> T call(Supplier<T> work) {
+        return ScopedValue.where(CURRENT, this).call(work::get);
+    }
+
+    public void run(Runnable work) {
+        ScopedValue.where(CURRENT, this).run(work);
+    }
+
+    public <T, X extends Throwable> T callChecked(ScopedValue.CallableOp<T, X> work) throws X {
+        return ScopedValue.where(CURRENT, this).call(work);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.cache;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link ChatModel} decorator that lets a response cache store only answer text. Inside {@link #record}
+ * the text of the model's answer is captured; inside {@link #replay} blocking calls are answered with the
+ * given text without reaching the delegate. Everything around the model (session handling, chat memory
+ * advisors, the response shape) runs as usual, so a replayed answer is built for, and remembered in, the
+ * caller's own session. Streams always go to the delegate.
+ */
+public class ReplayingChatModel implements ChatModel {
+
+    private static final ScopedValue<Slot> SLOT = ScopedValue.newInstance();
+
+    private final ChatModel delegate;
+
+    public ReplayingChatModel(ChatModel delegate) {
+        this.delegate = delegate;
+    }
+
+    public static <T> Recording<T> record(Supplier<T> work) {
+        Slot slot = new Slot(null);
+        T result = ScopedValue.where(SLOT, slot).call(work::get);
+        return new Recording<>(result, slot.answer);
+    }
+
+    public static <T> T replay(String answer, Supplier<T> work) {
+        return ScopedValue.where(SLOT, new Slot(answer)).call(work::get);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        if (!SLOT.isBound()) return delegate.call(prompt);
+        Slot slot = SLOT.get();
+        if (slot.replay != null) return new ChatResponse(List.of(new Generation(new AssistantMessage(slot.replay))));
+        ChatResponse response = delegate.call(prompt);
+        if (response != null && response.getResult() != null) slot.answer = response.getResult().getOutput().getText();
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    public record Recording<T>(T result, String answer) {
+    }
+
+    private static final class Slot {
+
+        private final String replay;
+        private String answer;
+
+        private Slot(String replay) {
+            this.replay = replay;
+        }
+    }
+}
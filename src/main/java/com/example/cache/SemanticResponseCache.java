@@ -0,0 +1,171 @@
+package com.example.cache;
+
+import com.example.vectorstore.SimilarityKernel;
+import com.example.vectorstore.SimilarityKernels;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Answers near-duplicate questions from previously computed responses. The question is embedded (through
+ * the cached embedding chain) and compared by cosine similarity against the questions answered within
+ * {@code ttl}; the best match at or above {@code similarityThreshold} is returned as a hit. The entry set is
+ * small and bounded by {@code maxEntries}, so lookup is an exact scan with the SIMD kernel. Request
+ * parameters other than the question (such as {@code topK}) go into a scope that must match exactly.
+ *
+ * @param <T> response type
+ */
+public class SemanticResponseCache<T> {
+
+    public static final String HEADER = "X-Cache";
+
+    private final EmbeddingModel embeddingModel;
+    private final float similarityThreshold;
+    private final Cache<String, Entry<T>> entries;
+    private final SimilarityKernel kernel = SimilarityKernels.get();
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer saved;
+
+    private SemanticResponseCache(Builder builder) {
+        this.embeddingModel = builder.embeddingModel;
+        this.similarityThreshold = builder.similarityThreshold;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(builder.maxEntries)
+                .expireAfterWrite(builder.ttl)
+                .recordStats()
+                .build();
+        if (builder.meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(builder.meterRegistry, entries, "semantic." + builder.name);
+            this.hits = Counter.builder("semantic.cache.requests").tag("cache", builder.name).tag("result", "hit").register(builder.meterRegistry);
+            this.misses = Counter.builder("semantic.cache.requests").tag("cache", builder.name).tag("result", "miss").register(builder.meterRegistry);
+            this.saved = Timer.builder("semantic.cache.latency.saved")
+                    .description("Computation time of the cached responses served as hits")
+                    .tag("cache", builder.name)
+                    .register(builder.meterRegistry);
+        } else {
+            this.hits = null;
+            this.misses = null;
+            this.saved = null;
+        }
+    }
+
+    public static <T> Builder<T> builder(EmbeddingModel embeddingModel, String name) {
+        return new Builder<>(embeddingModel, name);
+    }
+
+    public Result<T> getOrCompute(String question, Supplier<T> compute) {
+        return getOrCompute("", question, compute);
+    }
+
+    public Result<T> getOrCompute(String scope, String question, Supplier<T> compute) {
+        float[] vector = normalize(embeddingModel.embed(question));
+        Entry<T> best = null;
+        float bestScore = similarityThreshold;
+        for (Entry<T> entry : entries.asMap().values()) {
+            if (entry.vector().length != vector.length || !entry.scope().equals(scope)) continue;
+            float score = kernel.dot(vector, entry.vector());
+            if (score >= bestScore) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+        if (best != null) {
+            entries.getIfPresent(best.id());
+            if (hits != null) {
+                hits.increment();
+                saved.record(best.computeTime());
+            }
+            return new Result<>(best.response(), true);
+        }
+
+        if (misses != null) misses.increment();
+        long start = System.nanoTime();
+        T response = compute.get();
+        Duration computeTime = Duration.ofNanos(System.nanoTime() - start);
+        if (response != null) {
+            String id = UUID.randomUUID().toString();
+            entries.put(id, new Entry<>(id, scope, vector, response, computeTime));
+        }
+        return new Result<>(response, false);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    private static float[] normalize(float[] embedding) {
+        double norm = 0;
+        for (float value : embedding) norm += value * value;
+        float[] vector = embedding.clone();
+        if (norm == 0) return vector;
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) vector[i] *= scale;
+        return vector;
+    }
+
+    public record Result<T>(T value, boolean hit) {
+
+        public String header() {
+            return hit ? "HIT" : "MISS";
+        }
+    }
+
+    private record Entry<T>(String id, String scope, float[] vector, T response, Duration computeTime) {
+    }
+
+    public static final class Builder<T> {
+
+        private final EmbeddingModel embeddingModel;
+        private final String name;
+        private float similarityThreshold = 0.95f;
+        private Duration ttl = Duration.ofHours(1);
+        private int maxEntries = 2000;
+        private MeterRegistry meterRegistry;
+
+        private Builder(EmbeddingModel embeddingModel, String name) {
+            this.embeddingModel = embeddingModel;
+            this.name = name;
+        }
+
+        public Builder<T> similarityThreshold(double similarityThreshold) {
+            if (similarityThreshold <= 0 || similarityThreshold > 1) {
+                throw new IllegalArgumentException("similarityThreshold must be in (0, 1]");
+            }
+            this.similarityThreshold = (float) similarityThreshold;
+            return this;
+        }
+
+        public Builder<T> ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public Builder<T> maxEntries(int maxEntries) {
+            if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive");
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        public Builder<T> meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public SemanticResponseCache<T> build() {
+            return new SemanticResponseCache<>(this);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.config;
+
+import com.example.admission.AdmissionScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The scheduler that admits upstream chat and embedding calls. Without it ({@code app.admission.enabled=false})
+ * the models call OpenAI directly.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Value("${app.admission.initial-limit:16}")
+    private int initialLimit;
+
+    @Value("${app.admission.min-limit:2}")
+    private int minLimit;
+
+    @Value("${app.admission.max-limit:64}")
+    private int maxLimit;
+
+    @Value("${app.admission.max-queued:500}")
+    private int maxQueued;
+
+    @Value("${app.admission.max-wait:PT30S}")
+    private Duration maxWait;
+
+    @Value("${app.admission.latency-target:PT10S}")
+    private Duration latencyTarget;
+
+    @Value("${app.admission.backoff-interval:PT2S}")
+    private Duration backoffInterval;
+
+    @Bean
+    public AdmissionScheduler admissionScheduler(MeterRegistry meterRegistry) {
+        return AdmissionScheduler.builder()
+                .limits(initialLimit, minLimit, maxLimit)
+                .maxQueued(maxQueued)
+                .maxWait(maxWait)
+                .latencyTarget(latencyTarget)
+                .backoffInterval(backoffInterval)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+}
@@ -1,34 +1,20 @@
 package com.example.config;
 
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.InMemoryChatMemory;
-import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
-import org.springframework.ai.vectorstore.VectorStore;
+import com.example.observability.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import static org.springframework.ai.utility.Constants.*;
-
+/**
+ * Beans shared by the model and store configurations; the models, chat memory, vector store and admission
+ * are configured in {@link ChatConfig}, {@link EmbeddingConfig}, {@link VectorStoreConfig} and
+ * {@link AdmissionConfig}.
+ */
 @Configuration
 public class AiConfig {
 
     @Bean
-    public ChatMemory chatMemory() {
-        return new InMemoryChatMemory();
-    }
-
-    @Bean
-    public ChatClient chatClient(ChatModel chatModel) {
-        return ChatClient.builder(chatModel)
-                .defaultSystem(DEFAULT_MSG)
-                .build();
-    }
-
-    @Bean
-    public VectorStore vectorStore(EmbeddingModel embeddingModel) {
-        return SimpleVectorStore.builder(embeddingModel).build();
+    public PipelineMetrics pipelineMetrics(MeterRegistry meterRegistry) {
+        return new PipelineMetrics(meterRegistry);
     }
 }
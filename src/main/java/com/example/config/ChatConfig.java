@@ -0,0 +1,104 @@
+package com.example.config;
+
+import com.example.admission.AdmissionChatModel;
+import com.example.admission.AdmissionScheduler;
+import com.example.cache.ReplayingChatModel;
+import com.example.memory.PersistentChatMemory;
+import com.example.memory.StoredChatMessageRepository;
+import com.example.memory.TokenWindowAdvisor;
+import com.example.observability.ObservedChatMemory;
+import com.example.observability.ObservedChatModel;
+import com.example.observability.PipelineMetrics;
+import com.example.observability.PromptAssemblyAdvisor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+import static org.springframework.ai.utility.Constants.*;
+
+@Configuration
+public class ChatConfig {
+
+    @Value("${app.chat.memory.max-messages:100}")
+    private int memoryMaxMessages;
+
+    @Value("${app.chat.memory.max-tokens:8000}")
+    private int memoryMaxTokens;
+
+    @Value("${app.chat.memory.max-bytes:67108864}")
+    private long memoryMaxBytes;
+
+    @Value("${app.chat.memory.idle-ttl:PT30M}")
+    private Duration memoryIdleTtl;
+
+    @Value("${app.chat.memory.retention:P7D}")
+    private Duration memoryRetention;
+
+    @Value("${app.chat.memory.flush-interval:PT0.5S}")
+    private Duration memoryFlushInterval;
+
+    @Value("${app.chat.memory.batch-size:100}")
+    private int memoryBatchSize;
+
+    @Value("${app.chat.window.enabled:true}")
+    private boolean windowEnabled;
+
+    @Value("${app.chat.window.tokens:3000}")
+    private int windowTokens;
+
+    @Value("${app.chat.window.summary-words:250}")
+    private int windowSummaryWords;
+
+    @Bean
+    @Primary
+    public ChatModel primaryChatModel(OpenAiChatModel openAiChatModel, ObjectProvider<AdmissionScheduler> admissionScheduler,
+                                      PipelineMetrics pipelineMetrics) {
+        AdmissionScheduler scheduler = admissionScheduler.getIfAvailable();
+        ChatModel chatModel = scheduler != null ? new AdmissionChatModel(openAiChatModel, scheduler) : openAiChatModel;
+        // observed outside admission, so time to first token includes any wait for an admission slot;
+        // cached answers are replayed above both, so they neither take a slot nor count as completions
+        return new ReplayingChatModel(new ObservedChatModel(chatModel, pipelineMetrics));
+    }
+
+    @Bean
+    public ChatMemory chatMemory(StoredChatMessageRepository repository, MeterRegistry meterRegistry, PipelineMetrics pipelineMetrics) {
+        return new ObservedChatMemory(PersistentChatMemory.builder(repository)
+                .maxMessages(memoryMaxMessages)
+                .maxTokens(memoryMaxTokens)
+                .maxBytes(memoryMaxBytes)
+                .idleTtl(memoryIdleTtl)
+                .retention(memoryRetention)
+                .flushInterval(memoryFlushInterval)
+                .batchSize(memoryBatchSize)
+                .meterRegistry(meterRegistry)
+                .build(), pipelineMetrics);
+    }
+
+    @Bean
+    public TokenWindowAdvisor tokenWindowAdvisor(ChatModel chatModel, MeterRegistry meterRegistry) {
+        return TokenWindowAdvisor.builder(chatModel)
+                .windowTokens(windowTokens)
+                .summaryWords(windowSummaryWords)
+                .idleTtl(memoryIdleTtl)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @Bean
+    public ChatClient chatClient(ChatModel chatModel, TokenWindowAdvisor tokenWindowAdvisor) {
+        ChatClient.Builder builder = ChatClient.builder(chatModel)
+                .defaultSystem(DEFAULT_MSG)
+                .defaultAdvisors(new PromptAssemblyAdvisor());
+        if (windowEnabled) builder.defaultAdvisors(tokenWindowAdvisor);
+        return builder.build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.config;
+
+import com.example.admission.AdmissionEmbeddingModel;
+import com.example.admission.AdmissionScheduler;
+import com.example.embedding.BatchingEmbeddingModel;
+import com.example.embedding.CachingEmbeddingModel;
+import com.example.observability.ObservedEmbeddingModel;
+import com.example.observability.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class EmbeddingConfig {
+
+    @Value("${spring.ai.openai.embedding.options.model:text-embedding-3-small}")
+    private String modelName;
+
+    @Value("${app.embedding.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.embedding.cache.max-bytes:67108864}")
+    private long cacheMaxBytes;
+
+    @Value("${app.embedding.cache.disk-path:}")
+    private String cacheDiskPath;
+
+    @Value("${app.embedding.batch.window-ms:5}")
+    private long batchWindowMs;
+
+    @Value("${app.embedding.batch.max-size:64}")
+    private int batchMaxSize;
+
+    @Value("${app.embedding.batch.max-in-flight:4}")
+    private int batchMaxInFlight;
+
+    @Value("${app.embedding.batch.timeout:PT60S}")
+    private Duration batchTimeout;
+
+    // a bean of its own so that shutdown closes it and drains the pending batch
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.embedding.batch.enabled", havingValue = "true", matchIfMissing = true)
+    public BatchingEmbeddingModel batchingEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+                                                         ObjectProvider<AdmissionScheduler> admissionScheduler,
+                                                         MeterRegistry meterRegistry) {
+        // admitted below the batcher: one slot per upstream call, and the linger is not counted as latency
+        return BatchingEmbeddingModel.builder(admitted(openAiEmbeddingModel, admissionScheduler))
+                .window(Duration.ofMillis(batchWindowMs))
+                .maxBatchSize(batchMaxSize)
+                .maxInFlight(batchMaxInFlight)
+                .timeout(batchTimeout)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public EmbeddingModel primaryEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+                                                ObjectProvider<BatchingEmbeddingModel> batchingEmbeddingModel,
+                                                ObjectProvider<AdmissionScheduler> admissionScheduler,
+                                                MeterRegistry meterRegistry, PipelineMetrics pipelineMetrics) {
+        // cache hits never queue for admission
+        EmbeddingModel embeddingModel = batchingEmbeddingModel.getIfAvailable(() -> admitted(openAiEmbeddingModel, admissionScheduler));
+        if (cacheEnabled) {
+            embeddingModel = CachingEmbeddingModel.builder(embeddingModel, modelName)
+                    .maximumBytes(cacheMaxBytes)
+                    .diskPath(cacheDiskPath.isBlank() ? null : Path.of(cacheDiskPath))
+                    .meterRegistry(meterRegistry)
+                    .build();
+        }
+        return new ObservedEmbeddingModel(embeddingModel, modelName, pipelineMetrics);
+    }
+
+    private static EmbeddingModel admitted(EmbeddingModel embeddingModel, ObjectProvider<AdmissionScheduler> admissionScheduler) {
+        AdmissionScheduler scheduler = admissionScheduler.getIfAvailable();
+        return scheduler != null ? new AdmissionEmbeddingModel(embeddingModel, scheduler) : embeddingModel;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.config;
+
+import com.example.ratelimit.LocalRateLimiter;
+import com.example.ratelimit.RateLimitInterceptor;
+import com.example.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "app.ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    @Value("${app.ratelimit.paths:/api/ai/chat,/api/ai/chat/stream,/api/ai/rag/query}")
+    private List<String> paths;
+
+    @Value("${app.ratelimit.expected-completion-tokens:500}")
+    private long expectedCompletionTokens;
+
+    @Value("${app.ratelimit.user.capacity:20000}")
+    private long userCapacity;
+
+    @Value("${app.ratelimit.user.refill-per-second:100}")
+    private double userRefillPerSecond;
+
+    @Value("${app.ratelimit.user.max-concurrent:4}")
+    private int userMaxConcurrent;
+
+    @Value("${app.ratelimit.admin.capacity:100000}")
+    private long adminCapacity;
+
+    @Value("${app.ratelimit.admin.refill-per-second:500}")
+    private double adminRefillPerSecond;
+
+    @Value("${app.ratelimit.admin.max-concurrent:16}")
+    private int adminMaxConcurrent;
+
+    @Value("${app.ratelimit.idle-ttl:PT10M}")
+    private Duration idleTtl;
+
+    private final ObjectProvider<RateLimitInterceptor> rateLimitInterceptor;
+
+    public RateLimitConfig(ObjectProvider<RateLimitInterceptor> rateLimitInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(RateLimiter.class)
+    public RateLimiter rateLimiter() {
+        return new LocalRateLimiter(idleTtl, 1_000_000);
+    }
+
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor(RateLimiter rateLimiter, MeterRegistry meterRegistry) {
+        RateLimitInterceptor.Quota user = new RateLimitInterceptor.Quota(
+                new RateLimiter.Bucket(userCapacity, userRefillPerSecond), userMaxConcurrent);
+        RateLimitInterceptor.Quota admin = new RateLimitInterceptor.Quota(
+                new RateLimiter.Bucket(adminCapacity, adminRefillPerSecond), adminMaxConcurrent);
+        return new RateLimitInterceptor(rateLimiter, Map.of("USER", user, "ADMIN", admin), user,
+                expectedCompletionTokens, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor.getObject()).addPathPatterns(paths);
+    }
+}
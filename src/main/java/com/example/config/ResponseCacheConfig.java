@@ -0,0 +1,59 @@
+package com.example.config;
+
+import com.example.cache.SemanticResponseCache;
+import com.example.ingest.DocumentsChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.utility.Ai;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+public class ResponseCacheConfig {
+
+    @Value("${app.cache.semantic.similarity-threshold:0.95}")
+    private double similarityThreshold;
+
+    @Value("${app.cache.semantic.ttl:PT1H}")
+    private Duration ttl;
+
+    @Value("${app.cache.semantic.max-entries:2000}")
+    private int maxEntries;
+
+    private SemanticResponseCache<Ai.RagResponse> ragCache;
+
+    @Bean
+    public SemanticResponseCache<Ai.RagResponse> ragResponseCache(EmbeddingModel embeddingModel, MeterRegistry meterRegistry) {
+        ragCache = SemanticResponseCache.<Ai.RagResponse>builder(embeddingModel, "rag")
+                .similarityThreshold(similarityThreshold)
+                .ttl(ttl)
+                .maxEntries(maxEntries)
+                .meterRegistry(meterRegistry)
+                .build();
+        return ragCache;
+    }
+
+    @Bean
+    public SemanticResponseCache<String> chatResponseCache(EmbeddingModel embeddingModel, MeterRegistry meterRegistry) {
+        // answer text only: the response is rebuilt for each caller's session, see ReplayingChatModel
+        return SemanticResponseCache.<String>builder(embeddingModel, "chat")
+                .similarityThreshold(similarityThreshold)
+                .ttl(ttl)
+                .maxEntries(maxEntries)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @EventListener
+    public void onDocumentsChanged(DocumentsChangedEvent event) {
+        if (ragCache == null) return;
+        log.debug("Documents changed ({}), invalidating {} cached RAG answers", event.source(), ragCache.size());
+        ragCache.invalidateAll();
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.config;
 
+import com.example.security.CachingJwtAuthenticationFilter;
+import com.example.security.OffloadedPasswordEncoder;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.ai.filter.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -17,8 +20,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.*;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -26,6 +29,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -36,16 +40,31 @@ import static org.springframework.ai.utility.Constants.*;
 @EnableMethodSecurity
 public class SecurityConfig {
 
-    private final JwtAuthenticationFilter jwtAuthFilter;
+    @Value("${app.security.password.threads:0}")
+    private int passwordThreads;
+
+    @Value("${app.security.password.queue-capacity:64}")
+    private int passwordQueueCapacity;
+
+    @Value("${app.security.password.timeout:PT5S}")
+    private Duration passwordTimeout;
+
+    @Value("${app.security.password.target-latency:PT0.25S}")
+    private Duration passwordTargetLatency;
+
+    @Value("${app.security.password.strength:0}")
+    private int passwordStrength;
+
+    private final CachingJwtAuthenticationFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, UserDetailsService userDetailsService) {
+    public SecurityConfig(CachingJwtAuthenticationFilter jwtAuthFilter, UserDetailsService userDetailsService) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.userDetailsService = userDetailsService;
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) {
         Customizer<CorsConfigurer<HttpSecurity>> corsConfigurerCustomizer = cors -> cors.configurationSource(corsConfigurationSource());
 
         Customizer<SessionManagementConfigurer<HttpSecurity>> sessionManagementConfigurerCustomizer = s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS);
@@ -77,16 +96,18 @@ public class SecurityConfig {
                 .authorizeHttpRequests(admin)
                 .headers(headersConfigurerCustomizer)
                 .exceptionHandling(exceptionHandlingConfigurerCustomizer)
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder,
+                                                         UserDetailsPasswordService passwordUpgrader) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(passwordUpgrader);
         return provider;
     }
 
@@ -96,8 +117,15 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        OffloadedPasswordEncoder.Builder builder = OffloadedPasswordEncoder.builder()
+                .queueCapacity(passwordQueueCapacity)
+                .timeout(passwordTimeout)
+                .targetLatency(passwordTargetLatency)
+                .strength(passwordStrength)
+                .meterRegistry(meterRegistry);
+        if (passwordThreads > 0) builder.threads(passwordThreads);
+        return builder.build();
     }
 
     @Bean
@@ -0,0 +1,207 @@
+package com.example.config;
+
+import com.example.observability.ObservedVectorStore;
+import com.example.observability.PipelineMetrics;
+import com.example.vectorstore.HnswVectorStore;
+import com.example.vectorstore.HybridVectorStore;
+import com.example.vectorstore.MappedVectorStore;
+import com.example.vectorstore.ScopedFilterVectorStore;
+import com.example.vectorstore.ShardedVectorStore;
+import com.example.vectorstore.WriteAheadLogVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Configuration
+public class VectorStoreConfig {
+
+    @Value("${app.vectorstore.type:simple}")
+    private String vectorStoreType;
+
+    @Value("${app.vectorstore.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${app.vectorstore.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${app.vectorstore.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    @Value("${app.vectorstore.hnsw.exact-scan-limit:2048}")
+    private int hnswExactScanLimit;
+
+    @Value("${app.vectorstore.metadata-index.keys:source,tenant,ingested_at}")
+    private Set<String> metadataIndexKeys;
+
+    @Value("${app.vectorstore.mapped.path:./data/vectorstore}")
+    private String mappedPath;
+
+    @Value("${app.vectorstore.mapped.precision:float32}")
+    private String mappedPrecision;
+
+    @Value("${app.vectorstore.mapped.quantization:none}")
+    private String mappedQuantization;
+
+    @Value("${app.vectorstore.mapped.pq-subspaces:96}")
+    private int pqSubspaces;
+
+    @Value("${app.vectorstore.mapped.rerank-factor:4}")
+    private int rerankFactor;
+
+    @Value("${app.vectorstore.hybrid.enabled:true}")
+    private boolean hybridEnabled;
+
+    @Value("${app.vectorstore.hybrid.k1:1.2}")
+    private float hybridK1;
+
+    @Value("${app.vectorstore.hybrid.b:0.75}")
+    private float hybridB;
+
+    @Value("${app.vectorstore.hybrid.rrf-k:60}")
+    private int hybridRrfK;
+
+    @Value("${app.vectorstore.hybrid.candidate-factor:4}")
+    private int hybridCandidateFactor;
+
+    @Value("${app.vectorstore.wal.enabled:false}")
+    private boolean walEnabled;
+
+    @Value("${app.vectorstore.wal.path:./data/wal}")
+    private String walPath;
+
+    @Value("${app.vectorstore.wal.max-group-size:1024}")
+    private int walMaxGroupSize;
+
+    @Value("${app.vectorstore.wal.max-segments:8}")
+    private int walMaxSegments;
+
+    @Value("${app.vectorstore.wal.compact-threshold:10000}")
+    private int walCompactThreshold;
+
+    @Value("${app.vectorstore.wal.commit-timeout:PT60S}")
+    private Duration walCommitTimeout;
+
+    @Value("${app.vectorstore.sharding.hash-shards:4}")
+    private int shardingHashShards;
+
+    @Value("${app.vectorstore.sharding.tenant-key:tenant}")
+    private String shardingTenantKey;
+
+    /**
+     * Closed through the {@code vectorStore} decorator chain, not on its own.
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "app.vectorstore.sharding.enabled", havingValue = "true")
+    public ShardedVectorStore shardedVectorStore(EmbeddingModel embeddingModel, MeterRegistry meterRegistry) {
+        return ShardedVectorStore.builder(embeddingModel,
+                        (shard, shardEmbeddingModel) -> durableVectorStore(shardEmbeddingModel, shard, meterRegistry))
+                .tenantKey(shardingTenantKey)
+                .hashShards(shardingHashShards)
+                .existingShards(persistedTenantShards())
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public VectorStore vectorStore(EmbeddingModel embeddingModel, ObjectProvider<ShardedVectorStore> shardedVectorStore,
+                                   MeterRegistry meterRegistry, PipelineMetrics pipelineMetrics) {
+        VectorStore vectorStore = shardedVectorStore.getIfAvailable(() -> durableVectorStore(embeddingModel, null, meterRegistry));
+        if (!hybridEnabled) return new ObservedVectorStore(new ScopedFilterVectorStore(vectorStore), pipelineMetrics);
+        HybridVectorStore hybrid = HybridVectorStore.builder(vectorStore)
+                .k1(hybridK1)
+                .b(hybridB)
+                .rrfK(hybridRrfK)
+                .candidateFactor(hybridCandidateFactor)
+                .build();
+        Collection<VectorStore> stores = vectorStore instanceof ShardedVectorStore sharded ? sharded.shards().values() : List.of(vectorStore);
+        for (VectorStore store : stores) {
+            List<Document> batch = new ArrayList<>();
+            Consumer<Document> reindex = document -> {
+                batch.add(document);
+                if (batch.size() == 1000) {
+                    hybrid.reindex(batch);
+                    batch.clear();
+                }
+            };
+            if (store instanceof MappedVectorStore mapped) mapped.forEachDocument(reindex);
+            else if (store instanceof WriteAheadLogVectorStore logged) logged.forEachDocument(reindex);
+            else continue;
+            hybrid.reindex(batch);
+        }
+        return new ObservedVectorStore(new ScopedFilterVectorStore(hybrid), pipelineMetrics);
+    }
+
+    /**
+     * The base store for one shard (or the whole corpus when {@code shard} is null), behind a write-ahead
+     * log when enabled. The mapped store persists its own files and is not logged.
+     */
+    private VectorStore durableVectorStore(EmbeddingModel embeddingModel, String shard, MeterRegistry meterRegistry) {
+        Path mappedDirectory = shard == null ? Path.of(mappedPath) : Path.of(mappedPath).resolve(shard);
+        if (!walEnabled) return baseVectorStore(embeddingModel, mappedDirectory);
+        if ("mapped".equalsIgnoreCase(vectorStoreType)) {
+            throw new IllegalStateException("app.vectorstore.wal.enabled requires an in-memory app.vectorstore.type (hnsw or simple)");
+        }
+        return WriteAheadLogVectorStore.builder(embeddingModel, shard == null ? Path.of(walPath) : Path.of(walPath).resolve(shard),
+                        segmentEmbeddingModel -> baseVectorStore(segmentEmbeddingModel, mappedDirectory))
+                .maxGroupSize(walMaxGroupSize)
+                .maxSegments(walMaxSegments)
+                .compactThreshold(walCompactThreshold)
+                .commitTimeout(walCommitTimeout)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    private VectorStore baseVectorStore(EmbeddingModel embeddingModel, Path mappedDirectory) {
+        return switch (vectorStoreType.toLowerCase()) {
+            case "hnsw" -> HnswVectorStore.builder(embeddingModel)
+                    .m(hnswM)
+                    .efConstruction(hnswEfConstruction)
+                    .efSearch(hnswEfSearch)
+                    .exactScanLimit(hnswExactScanLimit)
+                    .metadataKeys(metadataIndexKeys)
+                    .build();
+            case "mapped" -> MappedVectorStore.builder(embeddingModel, mappedDirectory)
+                    .precision(MappedVectorStore.Precision.valueOf(mappedPrecision.toUpperCase()))
+                    .quantization(MappedVectorStore.Quantization.valueOf(mappedQuantization.toUpperCase()))
+                    .pqSubspaces(pqSubspaces)
+                    .rerankFactor(rerankFactor)
+                    .metadataKeys(metadataIndexKeys)
+                    .build();
+            case "simple" -> SimpleVectorStore.builder(embeddingModel).build();
+            default -> throw new IllegalStateException("Unknown app.vectorstore.type: " + vectorStoreType);
+        };
+    }
+
+    private List<String> persistedTenantShards() {
+        Path root = Path.of(walEnabled ? walPath : mappedPath);
+        if (!walEnabled && !"mapped".equalsIgnoreCase(vectorStoreType) || !Files.isDirectory(root)) return List.of();
+        try (Stream<Path> children = Files.list(root)) {
+            return children.filter(Files::isDirectory)
+                    .map(child -> child.getFileName().toString())
+                    .filter(name -> name.startsWith(ShardedVectorStore.TENANT_PREFIX))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list vector store shards under " + root, e);
+        }
+    }
@@ -0,0 +1,37 @@
+package com.example.config;
+
+import com.example.diagnostics.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true}, which moves Tomcat request handling and the
+ * application task executors onto virtual threads. Outbound OpenAI calls go through the JDK
+ * {@code HttpClient}, which blocks virtual threads without pinning their carriers.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public ClientHttpRequestFactoryBuilder<?> clientHttpRequestFactoryBuilder() {
+        return ClientHttpRequestFactoryBuilder.jdk()
+                .withHttpClientCustomizer(httpClient -> httpClient.executor(Executors.newVirtualThreadPerTaskExecutor()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.threads.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${app.threads.pinning-monitor.threshold:PT0.02S}") Duration threshold, MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(threshold, meterRegistry);
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.controller;
 
+import com.example.security.CachingJwtAuthenticationFilter;
+import com.example.users.UserDirectory;
+import com.example.users.UserSummary;
+import com.example.vectorstore.ShardedVectorStore;
 import io.swagger.v3.oas.annotations.Hidden;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -8,12 +12,18 @@ import org.springframework.ai.entity.ChatUser;
 import org.springframework.ai.exception.AdminCustomException;
 import org.springframework.ai.repository.ChatUserRepository;
 import org.springframework.ai.utility.Ai;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,22 +37,62 @@ import static org.springframework.ai.utility.Constants.*;
 @SecurityRequirement(name = BEARER_AUTH)
 public class AdminController {
 
+    public static final String LIST_VECTOR_STORE_SHARDS_WITH_THEIR_SIZES = "List vector store shards with their document counts";
+    public static final String REBUILD_ONE_VECTOR_STORE_SHARD = "Rebuild one vector store shard while the others keep serving";
+    public static final String FIND_ALL_SHARDS_SUCCESSFULLY = "Find all shards successfully";
+    public static final String REBUILD_SHARD_SUCCESSFULLY = "Rebuild shard successfully";
+    public static final String VECTOR_STORE_SHARDING_IS_DISABLED = "Vector store sharding is disabled";
+    public static final String EXPORT_REGISTERED_USERS_AS_JSON_LINES = "Export registered users as JSON lines";
+    public static final String UNKNOWN_ROLE = "Unknown role: ";
+    public static final String USERS = "users";
+    public static final String NEXT_CURSOR = "nextCursor";
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final ChatUserRepository userRepository;
+    private final UserDirectory userDirectory;
+    private final CachingJwtAuthenticationFilter jwtAuthFilter;
+    private final ObjectProvider<ShardedVectorStore> shardedVectorStore;
 
-    public AdminController(ChatUserRepository userRepository) {
+    public AdminController(ChatUserRepository userRepository, UserDirectory userDirectory,
+                           CachingJwtAuthenticationFilter jwtAuthFilter, ObjectProvider<ShardedVectorStore> shardedVectorStore) {
         this.userRepository = userRepository;
+        this.userDirectory = userDirectory;
+        this.jwtAuthFilter = jwtAuthFilter;
+        this.shardedVectorStore = shardedVectorStore;
     }
 
     @GetMapping("/users")
     @Operation(summary = LIST_ALL_REGISTERED_USERS)
-    public ResponseEntity<Ai.ApiResponse> listUsers(WebRequest request) {
-        List<Map<String, Object>> list;
+    public ResponseEntity<Ai.ApiResponse> listUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int size,
+            WebRequest request) {
+        UserDirectory.Filter filter = filter(role, createdFrom, createdTo, request);
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        Map<String, Object> page = new LinkedHashMap<>();
         try {
-            list = userRepository.findAll().stream().map(this::userToMap).toList();
+            List<UserSummary> users = userDirectory.page(filter, after, pageSize);
+            page.put(USERS, users.stream().map(UserDirectory::toMap).toList());
+            page.put(NEXT_CURSOR, users.size() < pageSize ? null : users.getLast().getId());
         } catch (Exception e) {
             throw new AdminCustomException(e.getMessage(), request);
         }
-        return ResponseEntity.status(HttpStatus.OK).body(apiResponse(request, list, FIND_ALL_USERS_SUCCESSFULLY));
+        return ResponseEntity.status(HttpStatus.OK).body(apiResponse(request, page, FIND_ALL_USERS_SUCCESSFULLY));
+    }
+
+    @GetMapping(value = "/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = EXPORT_REGISTERED_USERS_AS_JSON_LINES)
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            WebRequest request) {
+        UserDirectory.Filter filter = filter(role, createdFrom, createdTo, request);
+        StreamingResponseBody body = out -> userDirectory.export(filter, out);
+        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PutMapping("/users/{id}/role")
@@ -53,6 +103,7 @@ public class AdminController {
             ChatUser chatUser = userRepository.findById(id).orElseThrow(() -> new AdminCustomException("User with id: " + id + " not found", request));
             chatUser.setRole(ChatUser.Role.valueOf(role.toUpperCase()));
             userRepository.save(chatUser);
+            jwtAuthFilter.evictUser(chatUser.getUsername());
             map = Map.of(MESSAGE, ROLE_UPDATED_TO + role.toUpperCase());
         } catch (Exception e) {
             throw new AdminCustomException(e.getMessage(), request);
@@ -64,15 +115,44 @@ public class AdminController {
     @Operation(summary = DELETE_A_USER_BY_ID)
     public ResponseEntity<Ai.ApiResponse> deleteUser(@PathVariable Long id, WebRequest request) {
         try {
-            userRepository.deleteById(id);
+            userRepository.findById(id).ifPresent(chatUser -> {
+                userRepository.delete(chatUser);
+                jwtAuthFilter.evictUser(chatUser.getUsername());
+            });
         } catch (Exception e) {
             throw new AdminCustomException(e.getMessage(), request);
         }
         return ResponseEntity.status(HttpStatus.OK).body(apiResponse(request, DELETED, DELETE_USER_SUCCESSFULLY));
     }
 
-    private Map<String, Object> userToMap(ChatUser u) {
-        return Map.of(ID, u.getId(), USERNAME, u.getUsername(), EMAIL, u.getEmail(), ROLE, u.getRole().name(), CREATED_AT, u.getCreatedAt().toString());
+    @GetMapping("/vectorstore/shards")
+    @Operation(summary = LIST_VECTOR_STORE_SHARDS_WITH_THEIR_SIZES)
+    public ResponseEntity<Ai.ApiResponse> listShards(WebRequest request) {
+        ShardedVectorStore store = shardedVectorStore.getIfAvailable();
+        if (store == null) throw new AdminCustomException(VECTOR_STORE_SHARDING_IS_DISABLED, request);
+        return ResponseEntity.status(HttpStatus.OK).body(apiResponse(request, store.shardSizes(), FIND_ALL_SHARDS_SUCCESSFULLY));
+    }
+
+    @PostMapping("/vectorstore/shards/{shard}/rebuild")
+    @Operation(summary = REBUILD_ONE_VECTOR_STORE_SHARD)
+    public ResponseEntity<Ai.ApiResponse> rebuildShard(@PathVariable String shard, WebRequest request) {
+        ShardedVectorStore store = shardedVectorStore.getIfAvailable();
+        if (store == null) throw new AdminCustomException(VECTOR_STORE_SHARDING_IS_DISABLED, request);
+        try {
+            store.rebuild(shard);
+        } catch (Exception e) {
+            throw new AdminCustomException(e.getMessage(), request);
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(apiResponse(request, store.shardSizes(), REBUILD_SHARD_SUCCESSFULLY));
+    }
+
+    private UserDirectory.Filter filter(String role, LocalDateTime createdFrom, LocalDateTime createdTo, WebRequest request) {
+        if (role == null || role.isBlank()) return new UserDirectory.Filter(null, createdFrom, createdTo);
+        try {
+            return new UserDirectory.Filter(ChatUser.Role.valueOf(role.toUpperCase()), createdFrom, createdTo);
+        } catch (IllegalArgumentException e) {
+            throw new AdminCustomException(UNKNOWN_ROLE + role, request);
+        }
     }
 }
 
@@ -1,5 +1,6 @@
 package com.example.controller;
 
+import com.example.exception.ServiceOverloadedException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
@@ -37,6 +38,7 @@ public class AuthController {
         try {
             tokenResponse = authService.register(registerRequest);
         } catch (Exception e) {
+            ServiceOverloadedException.rethrowIfCause(e);
             throw new AuthCustomException(e.getMessage(), request);
         }
         return ResponseEntity.status(HttpStatus.CREATED).body(apiResponse(request, tokenResponse, USER_REGISTERED_SUCCESSFULLY1));
@@ -53,6 +55,7 @@ public class AuthController {
         try {
             login = authService.login(loginRequest);
         } catch (Exception e) {
+            ServiceOverloadedException.rethrowIfCause(e);
             throw new AuthCustomException(e.getMessage(), request);
         }
         return ResponseEntity.status(HttpStatus.CREATED).body(apiResponse(request, login, USER_LOGGED_IN_SUCCESSFULLY));
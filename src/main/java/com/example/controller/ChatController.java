@@ -1,28 +1,49 @@
 package com.example.controller;
 
+import com.example.cache.ReplayingChatModel;
+import com.example.cache.SemanticResponseCache;
+import com.example.stream.ResumableEventStreams;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.entity.ChatUser;
 import org.springframework.ai.exception.ChatCustomException;
 import org.springframework.ai.service.ChatService;
 import org.springframework.ai.utility.Ai;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.WebRequest;
 import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.springframework.ai.utility.Constants.*;
 
 public class ChatController {
 
+    public static final String RESUME_AN_INTERRUPTED_CHAT_STREAM = "Resume an interrupted chat stream from its Last-Event-ID";
+    public static final String STREAM_CANNOT_BE_RESUMED = "Stream cannot be resumed: ";
+
     private final ChatService chatService;
+    private final ChatMemory chatMemory;
+    private final SemanticResponseCache<String> responseCache;
+    private final boolean responseCacheEnabled;
+    private final ResumableEventStreams eventStreams;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, ChatMemory chatMemory,
+                          SemanticResponseCache<String> chatResponseCache,
+                          @Value("${app.cache.semantic.chat.enabled:false}") boolean responseCacheEnabled,
+                          ResumableEventStreams eventStreams) {
         this.chatService = chatService;
+        this.chatMemory = chatMemory;
+        this.responseCache = chatResponseCache;
+        this.responseCacheEnabled = responseCacheEnabled;
+        this.eventStreams = eventStreams;
     }
 
     @PostMapping
@@ -32,7 +53,19 @@ public class ChatController {
             @AuthenticationPrincipal ChatUser user,
             WebRequest request) {
         try {
-            return ResponseEntity.ok(chatService.chat(chatRequest, user));
+            if (!responseCacheEnabled || !isFirstTurn(chatRequest)) return ResponseEntity.ok(chatService.chat(chatRequest, user));
+            // only the answer text is shared; a hit still runs the chat for this caller's session, with the
+            // model replaying the cached text, so the response and memory belong to this session
+            AtomicReference<Ai.ChatResponse> computed = new AtomicReference<>();
+            SemanticResponseCache.Result<String> result = responseCache.getOrCompute(chatRequest.message(), () -> {
+                ReplayingChatModel.Recording<Ai.ChatResponse> recording = ReplayingChatModel.record(() -> chatService.chat(chatRequest, user));
+                computed.set(recording.result());
+                return recording.answer();
+            });
+            Ai.ChatResponse response = result.hit()
+                    ? ReplayingChatModel.replay(result.value(), () -> chatService.chat(chatRequest, user))
+                    : computed.get();
+            return ResponseEntity.ok().header(SemanticResponseCache.HEADER, result.header()).body(response);
         } catch (Exception e) {
             throw new ChatCustomException(e.getMessage(), request);
         }
@@ -40,17 +73,32 @@ public class ChatController {
 
     @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = STREAMING_CHAT_RESPONSE_DELIVERED_AS_SERVER_SENT_EVENTS)
-    public Flux<String> streamChat(
+    public Flux<ServerSentEvent<String>> streamChat(
             @Valid @RequestBody Ai.ChatRequest chatRequest,
             @AuthenticationPrincipal ChatUser user,
+            @RequestHeader(value = ResumableEventStreams.LAST_EVENT_ID, required = false) String lastEventId,
             WebRequest request) {
         try {
-            return chatService.streamChat(chatRequest, user);
+            if (lastEventId != null) {
+                var resumed = eventStreams.resume(lastEventId, owner(user));
+                if (resumed.isPresent()) return resumed.get();
+            }
+            return eventStreams.open(chatService.streamChat(chatRequest, user), owner(user));
         } catch (Exception e) {
             throw new ChatCustomException(e.getMessage(), request);
         }
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = RESUME_AN_INTERRUPTED_CHAT_STREAM)
+    public Flux<ServerSentEvent<String>> resumeStream(
+            @RequestHeader(ResumableEventStreams.LAST_EVENT_ID) String lastEventId,
+            @AuthenticationPrincipal ChatUser user,
+            WebRequest request) {
+        return eventStreams.resume(lastEventId, owner(user))
+                .orElseThrow(() -> new ChatCustomException(STREAM_CANNOT_BE_RESUMED + lastEventId, request));
+    }
+
     @GetMapping("/history/{sessionId}")
     @Operation(summary = GET_CONVERSATION_HISTORY_FOR_A_SESSION)
     public ResponseEntity<List<Ai.HistoryEntry>> history(
@@ -74,4 +122,13 @@ public class ChatController {
             throw new ChatCustomException(e.getMessage(), request);
         }
     }
+
+    private static String owner(ChatUser user) {
+        return user == null ? null : user.getUsername();
+    }
+
+    // answers depend on the session history, so only context-free first turns are served from the cache
+    private boolean isFirstTurn(Ai.ChatRequest chatRequest) {
+        return chatRequest.sessionId() == null || chatMemory.get(chatRequest.sessionId(), 1).isEmpty();
+    }
 }
\ No newline at end of file
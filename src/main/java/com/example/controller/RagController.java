@@ -1,13 +1,30 @@
 package com.example.controller;
 
+import com.example.cache.SemanticResponseCache;
+import com.example.ingest.BulkIngestionService;
+import com.example.ingest.DocumentsChangedEvent;
+import com.example.ingest.IngestionJob;
+import com.example.ingest.PdfIngestionPipeline;
+import com.example.security.TenantAccess;
+import com.example.vectorstore.ScopedFilterVectorStore;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
+import org.springframework.ai.entity.ChatUser;
 import org.springframework.ai.exception.RagCustomException;
 import org.springframework.ai.service.RagService;
 import org.springframework.ai.utility.Ai;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -15,15 +32,49 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.lang.reflect.RecordComponent;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import static org.springframework.ai.utility.Constants.*;
 
 public class RagController {
 
+    public static final String SUBMIT_A_PDF_FOR_ASYNCHRONOUS_INGESTION_ADMIN_ONLY = "Submit a PDF for asynchronous ingestion and get a job id (ADMIN only)";
+    public static final String GET_THE_PROGRESS_OF_AN_INGESTION_JOB = "Get the progress of an ingestion job";
+    public static final String INGESTION_JOB_NOT_FOUND = "Ingestion job not found: ";
+    public static final String INGEST_A_ZIP_OF_DOCUMENTS_INCREMENTALLY_ADMIN_ONLY = "Incrementally ingest a zip of PDF/text/markdown documents (ADMIN only)";
+    public static final String INGEST_A_SERVER_DIRECTORY_INCREMENTALLY_ADMIN_ONLY = "Incrementally ingest a directory under the configured ingestion root (ADMIN only)";
+    public static final String RESTRICT_RETRIEVAL_TO_ONE_SOURCE = "Only retrieve chunks from this source (PDF file name or text source)";
+    public static final String RESTRICT_RETRIEVAL_TO_ONE_TENANT = "Only retrieve chunks tagged with this tenant";
+    public static final String ONLY_DOCUMENTS_INGESTED_AT_OR_AFTER = "Only retrieve chunks ingested at or after this instant (ISO-8601)";
+    public static final String ONLY_DOCUMENTS_INGESTED_BEFORE = "Only retrieve chunks ingested before this instant (ISO-8601)";
+    public static final String TAG_INGESTED_CHUNKS_WITH_A_TENANT = "Tag every ingested chunk with this tenant (the caller must be granted it)";
+    public static final String NOT_GRANTED_TENANT = "Not granted access to tenant: ";
+
     private final RagService ragService;
+    private final PdfIngestionPipeline ingestionPipeline;
+    private final BulkIngestionService bulkIngestionService;
+    private final SemanticResponseCache<Ai.RagResponse> responseCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TenantAccess tenantAccess;
 
-    public RagController(RagService ragService) {
+    public RagController(RagService ragService, PdfIngestionPipeline ingestionPipeline,
+                         BulkIngestionService bulkIngestionService,
+                         SemanticResponseCache<Ai.RagResponse> ragResponseCache,
+                         ApplicationEventPublisher eventPublisher,
+                         TenantAccess tenantAccess) {
         this.ragService = ragService;
+        this.ingestionPipeline = ingestionPipeline;
+        this.bulkIngestionService = bulkIngestionService;
+        this.responseCache = ragResponseCache;
+        this.eventPublisher = eventPublisher;
+        this.tenantAccess = tenantAccess;
     }
 
     @PostMapping(value = "/ingest/pdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -31,10 +82,76 @@ public class RagController {
     @Operation(summary = UPLOAD_A_PDF_FOR_INGESTION_INTO_THE_VECTOR_STORE_ADMIN_ONLY)
     public ResponseEntity<Ai.IngestResponse> ingestPdf(
             @RequestParam(FILE) MultipartFile file,
+            @Parameter(description = TAG_INGESTED_CHUNKS_WITH_A_TENANT) @RequestParam(required = false) String tenant,
+            @AuthenticationPrincipal ChatUser user,
             WebRequest request) throws IOException {
+        checkTenant(user, tenant);
+        try {
+            if (file.isEmpty()) return ResponseEntity.badRequest().build();
+            Ai.IngestResponse response = ScopedFilterVectorStore.withMetadata(ingestMetadata(tenant), () -> ragService.ingestPdf(file));
+            eventPublisher.publishEvent(new DocumentsChangedEvent(file.getOriginalFilename()));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            throw new RagCustomException(e.getMessage(), request);
+        }
+    }
+
+    @PostMapping(value = "/ingest/pdf/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @Operation(summary = SUBMIT_A_PDF_FOR_ASYNCHRONOUS_INGESTION_ADMIN_ONLY)
+    public ResponseEntity<IngestionJob.Status> ingestPdfAsync(
+            @RequestParam(FILE) MultipartFile file,
+            @Parameter(description = TAG_INGESTED_CHUNKS_WITH_A_TENANT) @RequestParam(required = false) String tenant,
+            @AuthenticationPrincipal ChatUser user,
+            WebRequest request) {
+        checkTenant(user, tenant);
         try {
             if (file.isEmpty()) return ResponseEntity.badRequest().build();
-            return ResponseEntity.ok(ragService.ingestPdf(file));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestionPipeline.submit(file, tenant).status());
+        } catch (Exception e) {
+            throw new RagCustomException(e.getMessage(), request);
+        }
+    }
+
+    @GetMapping("/ingest/jobs/{jobId}")
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @Operation(summary = GET_THE_PROGRESS_OF_AN_INGESTION_JOB)
+    public ResponseEntity<IngestionJob.Status> ingestionStatus(@PathVariable String jobId, WebRequest request) {
+        IngestionJob job = ingestionPipeline.find(jobId)
+                .orElseThrow(() -> new RagCustomException(INGESTION_JOB_NOT_FOUND + jobId, request));
+        return ResponseEntity.ok(job.status());
+    }
+
+    @PostMapping(value = "/ingest/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @Operation(summary = INGEST_A_ZIP_OF_DOCUMENTS_INCREMENTALLY_ADMIN_ONLY)
+    public ResponseEntity<BulkIngestionService.Report> ingestBulk(
+            @RequestParam(FILE) MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean prune,
+            @Parameter(description = TAG_INGESTED_CHUNKS_WITH_A_TENANT) @RequestParam(required = false) String tenant,
+            @AuthenticationPrincipal ChatUser user,
+            WebRequest request) {
+        checkTenant(user, tenant);
+        try {
+            if (file.isEmpty()) return ResponseEntity.badRequest().build();
+            return ResponseEntity.ok(bulkIngestionService.ingestZip(file, prune, tenant));
+        } catch (Exception e) {
+            throw new RagCustomException(e.getMessage(), request);
+        }
+    }
+
+    @PostMapping("/ingest/directory")
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @Operation(summary = INGEST_A_SERVER_DIRECTORY_INCREMENTALLY_ADMIN_ONLY)
+    public ResponseEntity<BulkIngestionService.Report> ingestDirectory(
+            @RequestParam String path,
+            @RequestParam(defaultValue = "false") boolean prune,
+            @Parameter(description = TAG_INGESTED_CHUNKS_WITH_A_TENANT) @RequestParam(required = false) String tenant,
+            @AuthenticationPrincipal ChatUser user,
+            WebRequest request) {
+        checkTenant(user, tenant);
+        try {
+            return ResponseEntity.ok(bulkIngestionService.ingestDirectory(path, prune, tenant));
         } catch (Exception e) {
             throw new RagCustomException(e.getMessage(), request);
         }
@@ -46,9 +163,14 @@ public class RagController {
     public ResponseEntity<Ai.IngestResponse> ingestText(
             @RequestParam String text,
             @RequestParam(defaultValue = MANUAL) String source,
+            @Parameter(description = TAG_INGESTED_CHUNKS_WITH_A_TENANT) @RequestParam(required = false) String tenant,
+            @AuthenticationPrincipal ChatUser user,
             WebRequest request) throws IOException {
+        checkTenant(user, tenant);
         try {
-            return ResponseEntity.ok(ragService.ingestText(text, source));
+            Ai.IngestResponse response = ScopedFilterVectorStore.withMetadata(ingestMetadata(tenant), () -> ragService.ingestText(text, source));
+            eventPublisher.publishEvent(new DocumentsChangedEvent(source));
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             throw new RagCustomException(e.getMessage(), request);
         }
@@ -57,11 +179,98 @@ public class RagController {
     @PostMapping("/query")
     @Operation(summary = ASK_A_QUESTION_AGAINST_THE_KNOWLEDGE_BASE)
     public ResponseEntity<Ai.RagResponse> query(
-            @Valid @RequestBody Ai.RagRequest ragRequest, WebRequest request) {
+            @Valid @RequestBody Ai.RagRequest ragRequest,
+            @Parameter(description = RESTRICT_RETRIEVAL_TO_ONE_SOURCE) @RequestParam(required = false) String source,
+            @Parameter(description = RESTRICT_RETRIEVAL_TO_ONE_TENANT) @RequestParam(required = false) String tenant,
+            @Parameter(description = ONLY_DOCUMENTS_INGESTED_AT_OR_AFTER) @RequestParam(required = false) Instant ingestedAfter,
+            @Parameter(description = ONLY_DOCUMENTS_INGESTED_BEFORE) @RequestParam(required = false) Instant ingestedBefore,
+            @AuthenticationPrincipal ChatUser user,
+            WebRequest request) {
+        checkTenant(user, tenant);
         try {
-            return ResponseEntity.ok(ragService.query(ragRequest));
+            // without a tenant, only the caller's tenants and the untagged documents are visible
+            Set<String> readable = tenant == null || tenant.isBlank() ? tenantAccess.readableTenants(user) : null;
+            Filter.Expression visible = readable == null ? null : tenantScope(readable);
+            Filter.Expression filter = metadataFilter(source, tenant, ingestedAfter, ingestedBefore);
+            if (filter != null) {
+                // cached answers were retrieved without these filters, so filtered questions skip the cache
+                return ResponseEntity.ok(ScopedFilterVectorStore.withFilter(and(filter, visible), () -> ragService.query(ragRequest)));
+            }
+            SemanticResponseCache.Result<Ai.RagResponse> result = responseCache.getOrCompute(
+                    cacheScope(ragRequest) + tenantCacheScope(readable), ragRequest.question(),
+                    () -> ScopedFilterVectorStore.withFilter(visible, () -> ragService.query(ragRequest)));
+            return ResponseEntity.ok().header(SemanticResponseCache.HEADER, result.header()).body(result.value());
         } catch (Exception e) {
             throw new RagCustomException(e.getMessage(), request);
         }
     }
+
+    /**
+     * Outside the try blocks, so the denial reaches the handler as a 403 rather than a RAG error.
+     */
+    private void checkTenant(ChatUser user, String tenant) {
+        if (!tenantAccess.allows(user, tenant)) throw new AccessDeniedException(NOT_GRANTED_TENANT + tenant);
+    }
+
+    /**
+     * Stamped on every chunk of a synchronous ingest, as the pipeline does for queued jobs, so the
+     * {@code ingestedAfter}/{@code ingestedBefore} filters see them.
+     */
+    private static Map<String, Object> ingestMetadata(String tenant) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(PdfIngestionPipeline.INGESTED_AT, System.currentTimeMillis());
+        if (tenant != null && !tenant.isBlank()) metadata.put(PdfIngestionPipeline.TENANT, tenant);
+        return metadata;
+    }
+
+    /**
+     * Routable by {@link com.example.vectorstore.ShardedVectorStore}: the granted tenants' shards plus the
+     * hash shards, where the untagged documents (a null tenant) live.
+     */
+    private static Filter.Expression tenantScope(Set<String> tenants) {
+        FilterExpressionBuilder builder = new FilterExpressionBuilder();
+        FilterExpressionBuilder.Op untagged = builder.eq(PdfIngestionPipeline.TENANT, null);
+        if (tenants.isEmpty()) return untagged.build();
+        return builder.or(builder.in(PdfIngestionPipeline.TENANT, new ArrayList<Object>(new TreeSet<>(tenants))), untagged).build();
+    }
+
+    // answers are shared only between callers who can see the same tenants
+    private static String tenantCacheScope(Set<String> readable) {
+        return readable == null ? "" : "tenants=" + String.join(",", new TreeSet<>(readable)) + '\u0000';
+    }
+
+    private static Filter.Expression and(Filter.Expression left, Filter.Expression right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        return new Filter.Expression(Filter.ExpressionType.AND, left, right);
+    }
+
+    // every request field besides the question (topK and the rest) changes the answer, so they must match exactly
+    private static String cacheScope(Ai.RagRequest ragRequest) {
+        StringBuilder scope = new StringBuilder();
+        for (RecordComponent component : Ai.RagRequest.class.getRecordComponents()) {
+            if (component.getName().equals("question")) continue;
+            try {
+                scope.append(component.getName()).append('=').append(component.getAccessor().invoke(ragRequest)).append('\u0000');
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return scope.toString();
+    }
+
+    private static Filter.Expression metadataFilter(String source, String tenant, Instant ingestedAfter, Instant ingestedBefore) {
+        FilterExpressionBuilder builder = new FilterExpressionBuilder();
+        List<FilterExpressionBuilder.Op> conditions = new ArrayList<>();
+        if (source != null && !source.isBlank()) conditions.add(builder.eq(PdfIngestionPipeline.SOURCE, source));
+        if (tenant != null && !tenant.isBlank()) conditions.add(builder.eq(PdfIngestionPipeline.TENANT, tenant));
+        if (ingestedAfter != null) conditions.add(builder.gte(PdfIngestionPipeline.INGESTED_AT, ingestedAfter.toEpochMilli()));
+        if (ingestedBefore != null) conditions.add(builder.lt(PdfIngestionPipeline.INGESTED_AT, ingestedBefore.toEpochMilli()));
+        if (conditions.isEmpty()) return null;
+        FilterExpressionBuilder.Op combined = conditions.getFirst();
+        for (FilterExpressionBuilder.Op condition : conditions.subList(1, conditions.size())) {
+            combined = builder.and(combined, condition);
+        }
+        return combined.build();
+    }
 }
@@ -0,0 +1,74 @@
+package com.example.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in-process: every virtual thread that blocks
+ * while pinned to its carrier for longer than {@code threshold} is recorded in the
+ * {@code jvm.threads.virtual.pinned} timer, and each distinct pinning site is logged once with its stack.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private final Timer pinned;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {}", threshold);
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) return;
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        int first = firstApplicationFrame(frames);
+        String site = first < frames.size() ? describe(frames.get(first)) : "unknown";
+        if (!reportedSites.add(site)) return;
+        StringBuilder stack = new StringBuilder();
+        for (int i = first; i < Math.min(first + LOGGED_FRAMES, frames.size()); i++) stack.append("\n\tat ").append(describe(frames.get(i)));
+        log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), site, stack);
+    }
+
+    /**
+     * The top frames are the JDK's parking and monitor code, identical for every pinning site; the site is
+     * the first frame outside {@code java.*} and {@code jdk.*}, or the top frame when there is none.
+     */
+    private static int firstApplicationFrame(List<RecordedFrame> frames) {
+        for (int i = 0; i < frames.size(); i++) {
+            String type = frames.get(i).getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.")) return i;
+        }
+        return 0;
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.embedding;
+
+import com.example.admission.Priority;
+import com.example.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link EmbeddingModel} decorator that coalesces small concurrent requests: inputs are collected for up
+ * to {@code window} or until {@code maxBatchSize} inputs are pending, sent to the delegate as one
+ * request, and the vectors are handed back to the waiting callers. At most {@code maxInFlight} batches
+ * are outstanding; further batches wait for a slot. Requests that are already large go straight to the
+ * delegate, and a batch only combines requests for the same model and dimensions, so callers with
+ * overrides are batched with each other. A caller waits at most {@code timeout} for its batch. Batches are sent from a dispatcher thread
+ * at the highest {@link Priority} among their callers, so an admission-controlled delegate takes one slot
+ * per upstream call and classes it like its most urgent caller.
+ */
+public class BatchingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutNanos;
+    private final Semaphore inFlight;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+            .name("embedding-batch-timer").daemon().factory());
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final DistributionSummary batchSizes;
+    private List<Pending> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private BatchingEmbeddingModel(Builder builder) {
+        this.delegate = builder.delegate;
+        this.windowNanos = builder.window.toNanos();
+        this.maxBatchSize = builder.maxBatchSize;
+        this.timeoutNanos = builder.timeout.toNanos();
+        this.inFlight = new Semaphore(builder.maxInFlight);
+        this.batchSizes = builder.meterRegistry == null ? null : DistributionSummary.builder("embedding.batch.size")
+                .description("Inputs per coalesced embedding request")
+                .publishPercentiles(0.5, 0.99)
+                .register(builder.meterRegistry);
+    }
+
+    public static Builder builder(EmbeddingModel delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        if (texts.size() >= maxBatchSize) return delegate.call(request);
+        List<CompletableFuture<float[]>> futures = enqueue(texts, request.getOptions());
+        List<Embedding> embeddings = new ArrayList<>(futures.size());
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                embeddings.add(new Embedding(futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS), i));
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ServiceOverloadedException("Timed out waiting for a coalesced embedding batch", Duration.ofSeconds(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        timer.shutdownNow();
+        dispatcher.close();
+    }
+
+    private List<CompletableFuture<float[]>> enqueue(List<String> texts, EmbeddingOptions options) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        List<Pending> ready = null;
+        lock.lock();
+        try {
+            for (String text : texts) {
+                Pending item = new Pending(text, options, Priority.current().orElse(null), new CompletableFuture<>());
+                pending.add(item);
+                futures.add(item.result());
+            }
+            if (pending.size() >= maxBatchSize) {
+                ready = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ready != null) dispatch(ready);
+        return futures;
+    }
+
+    private void flush() {
+        List<Pending> ready;
+        lock.lock();
+        try {
+            ready = drain();
+        } finally {
+            lock.unlock();
+        }
+        if (!ready.isEmpty()) dispatch(ready);
+    }
+
+    private List<Pending> drain() {
+        List<Pending> ready = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return ready;
+    }
+
+    private void dispatch(List<Pending> ready) {
+        Map<Target, List<Pending>> byTarget = new LinkedHashMap<>();
+        for (Pending item : ready) byTarget.computeIfAbsent(Target.of(item.options()), target -> new ArrayList<>()).add(item);
+        for (List<Pending> batch : byTarget.values()) {
+            for (int from = 0; from < batch.size(); from += maxBatchSize) {
+                List<Pending> slice = batch.subList(from, Math.min(batch.size(), from + maxBatchSize));
+                dispatcher.execute(() -> send(slice));
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(item -> item.result().completeExceptionally(e));
+            return;
+        }
+        try {
+            if (batchSizes != null) batchSizes.record(batch.size());
+            List<String> texts = batch.stream().map(Pending::text).toList();
+            EmbeddingRequest request = new EmbeddingRequest(texts, batch.getFirst().options());
+            // the callers' scoped priorities do not reach this thread, so rebind the most urgent one
+            Priority priority = batch.stream().map(Pending::priority).filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(null);
+            List<Embedding> results = (priority == null ? delegate.call(request) : priority.call(() -> delegate.call(request))).getResults();
+            for (int i = 0; i < batch.size(); i++) batch.get(i).result().complete(results.get(i).getOutput());
+        } catch (Throwable e) {
+            batch.forEach(item -> item.result().completeExceptionally(e));
+            if (e instanceof Error error) throw error;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private record Pending(String text, EmbeddingOptions options, Priority priority, CompletableFuture<float[]> result) {
+    }
+
+    /**
+     * What a batch is sent for. Options implementations rarely define equality, so requests are grouped on
+     * the values the delegate honours rather than on the options objects; a batch is sent with the options
+     * of its first request.
+     */
+    private record Target(String model, Integer dimensions) {
+
+        static Target of(EmbeddingOptions options) {
+            return options == null ? new Target(null, null) : new Target(options.getModel(), options.getDimensions());
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel delegate;
+        private Duration window = Duration.ofMillis(5);
+        private int maxBatchSize = 64;
+        private int maxInFlight = 4;
+        private Duration timeout = Duration.ofSeconds(60);
+        private MeterRegistry meterRegistry;
+
+        private Builder(EmbeddingModel delegate) {
+            this.delegate = delegate;
+        }
+
+        public Builder window(Duration window) {
+            this.window = window;
+            return this;
+        }
+
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public BatchingEmbeddingModel build() {
+            return new BatchingEmbeddingModel(this);
+        }
+    }
+}
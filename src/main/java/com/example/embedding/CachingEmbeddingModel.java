@@ -0,0 +1,220 @@
+package com.example.embedding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * {@link EmbeddingModel} decorator that caches vectors by SHA-256 of the effective model name and
+ * dimensions (request options override the configured model) plus normalized text.
+ * The in-memory tier is a Caffeine (W-TinyLFU) cache bounded by approximate bytes; the optional disk
+ * tier stores raw float32 vectors under {@code <diskPath>/<hash prefix>/<hash>.bin}. Only cache misses
+ * are sent to the delegate, in a single batched request. Callers always receive copies, so mutating a
+ * returned vector cannot corrupt the cache.
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final EmbeddingModel delegate;
+    private final String modelName;
+    private final Cache<String, float[]> cache;
+    private final Path diskPath;
+    private final Counter diskHits;
+    private final Counter diskMisses;
+
+    private CachingEmbeddingModel(Builder builder) {
+        this.delegate = builder.delegate;
+        this.modelName = builder.modelName;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(builder.maximumBytes)
+                .weigher((String key, float[] vector) -> ENTRY_OVERHEAD_BYTES + key.length() * 2 + vector.length * Float.BYTES)
+                .recordStats()
+                .build();
+        this.diskPath = builder.diskPath;
+        if (diskPath != null) {
+            try {
+                Files.createDirectories(diskPath);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create embedding cache directory " + diskPath, e);
+            }
+        }
+        if (builder.meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(builder.meterRegistry, cache, "embedding", "model", modelName);
+            this.diskHits = Counter.builder("embedding.cache.disk").tag("result", "hit").tag("model", modelName).register(builder.meterRegistry);
+            this.diskMisses = Counter.builder("embedding.cache.disk").tag("result", "miss").tag("model", modelName).register(builder.meterRegistry);
+        } else {
+            this.diskHits = null;
+            this.diskMisses = null;
+        }
+    }
+
+    public static Builder builder(EmbeddingModel delegate, String modelName) {
+        return new Builder(delegate, modelName);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        float[][] vectors = new float[texts.size()][];
+        String[] keys = new String[texts.size()];
+        List<String> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            keys[i] = key(request.getOptions(), texts.get(i));
+            vectors[i] = lookup(keys[i]);
+            if (vectors[i] == null) {
+                misses.add(texts.get(i));
+                missIndexes.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(misses, request.getOptions()));
+            List<Embedding> results = response.getResults();
+            for (int i = 0; i < results.size(); i++) {
+                int index = missIndexes.get(i);
+                vectors[index] = results.get(i).getOutput();
+                store(keys[index], vectors[index]);
+            }
+        }
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) embeddings.add(new Embedding(vectors[i].clone(), i));
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private float[] lookup(String key) {
+        float[] cached = cache.getIfPresent(key);
+        if (cached != null || diskPath == null) return cached;
+        Path file = diskFile(key);
+        try {
+            if (Files.exists(file)) {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+                float[] vector = new float[buffer.remaining() / Float.BYTES];
+                buffer.asFloatBuffer().get(vector);
+                cache.put(key, vector);
+                if (diskHits != null) diskHits.increment();
+                return vector;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read cached embedding {}", file, e);
+        }
+        if (diskMisses != null) diskMisses.increment();
+        return null;
+    }
+
+    private void store(String key, float[] vector) {
+        cache.put(key, vector);
+        if (diskPath == null) return;
+        Path file = diskFile(key);
+        try {
+            Files.createDirectories(file.getParent());
+            ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+            buffer.asFloatBuffer().put(vector);
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.write(temp, buffer.array());
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write cached embedding {}", file, e);
+        }
+    }
+
+    private Path diskFile(String key) {
+        return diskPath.resolve(key.substring(0, 2)).resolve(key + ".bin");
+    }
+
+    private String key(EmbeddingOptions options, String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip()).replaceAll(" ");
+        String model = options != null && options.getModel() != null ? options.getModel() : modelName;
+        Integer dimensions = options != null ? options.getDimensions() : null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (dimensions != null) {
+                digest.update(dimensions.toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel delegate;
+        private final String modelName;
+        private long maximumBytes = 64L * 1024 * 1024;
+        private Path diskPath;
+        private MeterRegistry meterRegistry;
+
+        private Builder(EmbeddingModel delegate, String modelName) {
+            this.delegate = delegate;
+            this.modelName = modelName;
+        }
+
+        public Builder maximumBytes(long maximumBytes) {
+            this.maximumBytes = maximumBytes;
+            return this;
+        }
+
+        public Builder diskPath(Path diskPath) {
+            this.diskPath = diskPath;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public CachingEmbeddingModel build() {
+            return new CachingEmbeddingModel(this);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a caller exceeds its request budget or concurrent request cap. Mapped to
+ * {@code 429 Too Many Requests} with a {@code Retry-After} header.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a bounded resource (worker pool, admission queue) turns work away instead of queueing it.
+ * Mapped to {@code 503 Service Unavailable} with a {@code Retry-After} header.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Rethrows the overload if it is {@code e} or one of its causes, so that callers wrapping every
+     * failure in their own exception type do not turn it into a 4xx/500.
+     */
+    public static void rethrowIfCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceOverloadedException overloaded) throw overloaded;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Incremental bulk ingestion of a zip upload or a server-side directory. Every chunk gets a deterministic
+ * id derived from its origin, source path and content hash; chunks already recorded in
+ * {@link IndexedChunkRepository} are skipped, chunks no longer produced by a changed document are deleted,
+ * and only the delta is sent to the embedding model and vector store. The origin is the zip's file name or
+ * the directory namespace, so pruning only ever removes sources of the same zip or below the synced directory.
+ * A tenant, when given, is stamped on every chunk and is part of the origin, so each tenant keeps its own
+ * copy of a source.
+ */
+@Slf4j
+@Service
+public class BulkIngestionService {
+
+    public static final String CONTENT_HASH = "content_hash";
+
+    private static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "md");
+    private static final String DIRECTORY_ORIGIN = "directory";
+    private static final String ZIP_ORIGIN_PREFIX = "zip:";
+    private static final String TENANT_ORIGIN_PREFIX = "tenant:";
+
+    public record Report(int documentsScanned, int documentsUnchanged, int chunksAdded, int chunksSkipped,
+                         int chunksDeleted, int sourcesPruned) {
+    }
+
+    private final VectorStore vectorStore;
+    private final IndexedChunkRepository chunkRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path directoryRoot;
+    private final int batchSize;
+
+    public BulkIngestionService(VectorStore vectorStore,
+                                IndexedChunkRepository chunkRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${app.ingest.directory-root:}") String directoryRoot,
+                                @Value("${app.ingest.batch-size:64}") int batchSize,
+                                @Value("${app.vectorstore.type:simple}") String storeType,
+                                @Value("${app.vectorstore.wal.enabled:false}") boolean walEnabled,
+                                @Value("${spring.datasource.url:}") String datasourceUrl) {
+        this.vectorStore = vectorStore;
+        this.chunkRepository = chunkRepository;
+        this.eventPublisher = eventPublisher;
+        this.directoryRoot = directoryRoot.isBlank() ? null : Path.of(directoryRoot).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        if ((walEnabled || "mapped".equalsIgnoreCase(storeType)) && datasourceUrl.contains(":mem:")) {
+            log.warn("indexed_chunks is kept in an in-memory database while the vector store persists; after a restart "
+                    + "bulk ingestion re-embeds every chunk and cannot prune earlier syncs. Point spring.datasource.url "
+                    + "at a persistent database.");
+        }
+    }
+
+    public Report ingestZip(MultipartFile zip, boolean prune, String tenant) throws IOException {
+        String origin = tenantOrigin(tenant) + ZIP_ORIGIN_PREFIX + Objects.requireNonNullElse(zip.getOriginalFilename(), "");
+        Tally tally = new Tally();
+        Set<String> seen = new HashSet<>();
+        try (ZipInputStream entries = new ZipInputStream(zip.getInputStream())) {
+            for (ZipEntry entry = entries.getNextEntry(); entry != null; entry = entries.getNextEntry()) {
+                if (entry.isDirectory() || !isSupported(entry.getName())) continue;
+                String source = entry.getName();
+                seen.add(source);
+                sync(origin, tenant, source, extractText(source, entries), tally);
+            }
+        }
+        if (prune) pruneMissing(origin, "", seen, tally);
+        return finish(tally, zip.getOriginalFilename());
+    }
+
+    public Report ingestDirectory(String directory, boolean prune, String tenant) throws IOException {
+        if (directoryRoot == null) throw new IllegalArgumentException("Directory ingestion is disabled: app.ingest.directory-root is not set");
+        Path root = directoryRoot.resolve(directory).toAbsolutePath().normalize();
+        if (!root.startsWith(directoryRoot) || !Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Not a directory under the ingestion root: " + directory);
+        }
+        String relative = directoryRoot.relativize(root).toString().replace('\\', '/');
+        String origin = tenantOrigin(tenant) + DIRECTORY_ORIGIN;
+        Tally tally = new Tally();
+        Set<String> seen = new HashSet<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).filter(path -> isSupported(path.toString())).sorted().toList()) {
+                String source = directoryRoot.relativize(file).toString().replace('\\', '/');
+                seen.add(source);
+                try (InputStream in = Files.newInputStream(file)) {
+                    sync(origin, tenant, source, extractText(source, in), tally);
+                }
+            }
+        }
+        if (prune) pruneMissing(origin, relative.isEmpty() ? "" : relative + "/", seen, tally);
+        return finish(tally, directory);
+    }
+
+    private Report finish(Tally tally, String origin) {
+        Report report = tally.report();
+        if (report.chunksAdded() > 0 || report.chunksDeleted() > 0) eventPublisher.publishEvent(new DocumentsChangedEvent(origin));
+        return report;
+    }
+
+    private static String tenantOrigin(String tenant) {
+        return tenant == null || tenant.isBlank() ? "" : TENANT_ORIGIN_PREFIX + tenant + "/";
+    }
+
+    private void sync(String origin, String tenant, String source, List<String> texts, Tally tally) {
+        tally.documentsScanned++;
+        long ingestedAt = System.currentTimeMillis();
+        TokenTextSplitter splitter = new TokenTextSplitter();
+        Map<String, Document> wanted = new LinkedHashMap<>();
+        for (String text : texts) {
+            if (text.isBlank()) continue;
+            for (Document chunk : splitter.apply(List.of(new Document(text)))) {
+                String hash = sha256(chunk.getText());
+                String id = UUID.nameUUIDFromBytes((origin + '\u0000' + source + '\u0000' + hash).getBytes(StandardCharsets.UTF_8)).toString();
+                Map<String, Object> metadata = new HashMap<>(Map.of(PdfIngestionPipeline.SOURCE, source, CONTENT_HASH, hash,
+                        PdfIngestionPipeline.INGESTED_AT, ingestedAt));
+                if (tenant != null && !tenant.isBlank()) metadata.put(PdfIngestionPipeline.TENANT, tenant);
+                wanted.putIfAbsent(id, Document.builder()
+                        .id(id)
+                        .text(chunk.getText())
+                        .metadata(metadata)
+                        .build());
+            }
+        }
+
+        Set<String> existing = new HashSet<>(chunkRepository.findIdsBySourceAndOrigin(source, origin));
+        List<String> stale = existing.stream().filter(id -> !wanted.containsKey(id)).toList();
+        List<Document> added = wanted.values().stream().filter(chunk -> !existing.contains(chunk.getId())).toList();
+        tally.chunksSkipped += wanted.size() - added.size();
+        if (added.isEmpty() && stale.isEmpty()) {
+            tally.documentsUnchanged++;
+            return;
+        }
+
+        Instant now = Instant.now();
+        for (int from = 0; from < added.size(); from += batchSize) {
+            List<Document> batch = added.subList(from, Math.min(added.size(), from + batchSize));
+            vectorStore.add(batch);
+            chunkRepository.saveAll(batch.stream()
+                    .map(chunk -> new IndexedChunk(chunk.getId(), origin, source, (String) chunk.getMetadata().get(CONTENT_HASH), now))
+                    .toList());
+            tally.chunksAdded += batch.size();
+        }
+        deleteChunks(stale, tally);
+        log.info("Synced {}: {} chunks added, {} deleted", source, added.size(), stale.size());
+    }
+
+    private void pruneMissing(String origin, String prefix, Set<String> seen, Tally tally) {
+        for (String source : chunkRepository.findSourcesByOrigin(origin)) {
+            if (seen.contains(source) || !source.startsWith(prefix)) continue;
+            deleteChunks(chunkRepository.findIdsBySourceAndOrigin(source, origin), tally);
+            tally.sourcesPruned++;
+        }
+    }
+
+    private void deleteChunks(List<String> ids, Tally tally) {
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            vectorStore.delete(batch);
+            chunkRepository.deleteAllByIdInBatch(batch);
+            tally.chunksDeleted += batch.size();
+        }
+    }
+
+    private List<String> extractText(String source, InputStream in) throws IOException {
+        if (!extension(source).equals("pdf")) return List.of(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        Path spooled = Files.createTempFile("bulk-", ".pdf");
+        try {
+            Files.copy(in, spooled, StandardCopyOption.REPLACE_EXISTING);
+            try (PDDocument document = Loader.loadPDF(spooled.toFile(), (String) null, null, null, IOUtils.createTempFileOnlyStreamCache())) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                List<String> pages = new ArrayList<>(document.getNumberOfPages());
+                for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                    stripper.setStartPage(page);
+                    stripper.setEndPage(page);
+                    pages.add(stripper.getText(document));
+                }
+                return pages;
+            }
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    private static boolean isSupported(String name) {
+        String extension = extension(name);
+        return extension.equals("pdf") || TEXT_EXTENSIONS.contains(extension);
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Tally {
+
+        private int documentsScanned;
+        private int documentsUnchanged;
+        private int chunksAdded;
+        private int chunksSkipped;
+        private int chunksDeleted;
+        private int sourcesPruned;
+
+        private Report report() {
+            return new Report(documentsScanned, documentsUnchanged, chunksAdded, chunksSkipped, chunksDeleted, sourcesPruned);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.ingest;
+
+/**
+ * Published after documents were added to or removed from the vector store, so that anything derived
+ * from retrieval results (such as cached answers) can be invalidated.
+ */
+public record DocumentsChangedEvent(String source) {
+}
@@ -0,0 +1,65 @@
+package com.example.ingest;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "indexed_chunks", indexes = {
+        @Index(name = "idx_indexed_chunks_source", columnList = "source"),
+        @Index(name = "idx_indexed_chunks_origin_source", columnList = "origin, source")
+})
+public class IndexedChunk {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    /** Zip file name or directory namespace the chunk was synced from. */
+    @Column(nullable = false, length = 1024)
+    private String origin;
+
+    @Column(nullable = false, length = 1024)
+    private String source;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "indexed_at", nullable = false)
+    private Instant indexedAt;
+
+    protected IndexedChunk() {
+    }
+
+    public IndexedChunk(String id, String origin, String source, String contentHash, Instant indexedAt) {
+        this.id = id;
+        this.origin = origin;
+        this.source = source;
+        this.contentHash = contentHash;
+        this.indexedAt = indexedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public Instant getIndexedAt() {
+        return indexedAt;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ingest;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface IndexedChunkRepository extends JpaRepository<IndexedChunk, String> {
+
+    /**
+     * Ids of the chunks a sync of {@code source} from {@code origin} owns.
+     */
+    @Query("select c.id from IndexedChunk c where c.source = :source and c.origin = :origin")
+    List<String> findIdsBySourceAndOrigin(String source, String origin);
+
+    @Query("select distinct c.source from IndexedChunk c where c.origin = :origin")
+    List<String> findSourcesByOrigin(String origin);
+}
@@ -0,0 +1,96 @@
+package com.example.ingest;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IngestionJob {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record Status(String jobId, String source, State state, int totalPages, int pagesParsed, int chunksSplit,
+                         int chunksStored, String error, Instant submittedAt, Instant finishedAt) {
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String source;
+    private final String tenant;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicInteger pagesParsed = new AtomicInteger();
+    private final AtomicInteger chunksSplit = new AtomicInteger();
+    private final AtomicInteger chunksStored = new AtomicInteger();
+    private volatile State state = State.QUEUED;
+    private volatile int totalPages;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    public IngestionJob(String source, String tenant) {
+        this.source = source;
+        this.tenant = tenant;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Tenant stamped on every chunk of the job, or {@code null} for shared documents.
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void started(int totalPages) {
+        this.totalPages = totalPages;
+        this.state = State.RUNNING;
+    }
+
+    void pageParsed() {
+        pagesParsed.incrementAndGet();
+    }
+
+    void chunksSplit(int count) {
+        chunksSplit.addAndGet(count);
+    }
+
+    void chunksStored(int count) {
+        chunksStored.addAndGet(count);
+    }
+
+    void completed() {
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = State.FAILED;
+    }
+
+    public Status status() {
+        return new Status(id, source, state, totalPages, pagesParsed.get(), chunksSplit.get(), chunksStored.get(),
+                error, submittedAt, finishedAt);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.ingest;
+
+import com.example.admission.Priority;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asynchronous PDF ingestion: page reader → splitter → batched embed-and-store writer, connected by
+ * bounded queues so a slow stage back-pressures the ones before it. Pages are parsed in parallel by
+ * workers that each open their own file-backed {@link PDDocument}, so memory stays bounded by the queue
+ * sizes rather than the document size. When a stage fails the job is cancelled: every queue handoff polls
+ * a shared flag, so no stage stays blocked on a queue that nobody drains any more. A job's tenant, if any,
+ * is stamped on every page and so on every chunk.
+ */
+@Slf4j
+@Service
+public class PdfIngestionPipeline {
+
+    public static final String SOURCE = "source";
+    public static final String PAGE_NUMBER = "page_number";
+    public static final String TENANT = "tenant";
+    public static final String INGESTED_AT = "ingested_at";
+
+    private static final List<Document> END = List.of();
+    private static final long POLL_MILLIS = 100;
+
+    private final VectorStore vectorStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int parseWorkers;
+    private final int writers;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Duration jobRetention;
+    private final Semaphore runningJobs;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PdfIngestionPipeline(VectorStore vectorStore,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${app.ingest.parse-workers:0}") int parseWorkers,
+                                @Value("${app.ingest.writers:2}") int writers,
+                                @Value("${app.ingest.queue-capacity:16}") int queueCapacity,
+                                @Value("${app.ingest.batch-size:64}") int batchSize,
+                                @Value("${app.ingest.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                @Value("${app.ingest.job-retention:PT1H}") Duration jobRetention) {
+        this.vectorStore = vectorStore;
+        this.eventPublisher = eventPublisher;
+        this.parseWorkers = parseWorkers > 0 ? parseWorkers : Runtime.getRuntime().availableProcessors();
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.jobRetention = jobRetention;
+        this.runningJobs = new Semaphore(maxConcurrentJobs);
+    }
+
+    public IngestionJob submit(MultipartFile file, String tenant) throws IOException {
+        Path spooled = Files.createTempFile("ingest-", ".pdf");
+        file.transferTo(spooled);
+        String source = file.getOriginalFilename();
+        IngestionJob job = new IngestionJob(source == null || source.isBlank() ? "upload-" + UUID.randomUUID() + ".pdf" : source,
+                tenant == null || tenant.isBlank() ? null : tenant);
+        pruneFinishedJobs();
+        jobs.put(job.getId(), job);
+        jobExecutor.execute(() -> run(job, spooled));
+        return job;
+    }
+
+    public Optional<IngestionJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(IngestionJob job, Path pdf) {
+        try {
+            runningJobs.acquire();
+            try {
+                process(job, pdf);
+                job.completed();
+                log.info("Ingested {} ({} chunks) in job {}", job.getSource(), job.status().chunksStored(), job.getId());
+            } finally {
+                runningJobs.release();
+                if (job.status().chunksStored() > 0) eventPublisher.publishEvent(new DocumentsChangedEvent(job.getSource()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.failed("Interrupted");
+        } catch (Exception e) {
+            log.error("Ingestion job {} for {} failed", job.getId(), job.getSource(), e);
+            job.failed(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(pdf);
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled upload {}", pdf, e);
+            }
+        }
+    }
+
+    private void process(IngestionJob job, Path pdf) throws Exception {
+        int pageCount;
+        try (PDDocument document = load(pdf)) {
+            pageCount = document.getNumberOfPages();
+        }
+        job.started(pageCount);
+        int parsers = Math.max(1, Math.min(parseWorkers, pageCount));
+        BlockingQueue<List<Document>> pages = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Document>> chunks = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        try (ExecutorService stages = Executors.newVirtualThreadPerTaskExecutor()) {
+            ExecutorCompletionService<Void> completion = new ExecutorCompletionService<>(stages);
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int worker = 0; worker < parsers; worker++) {
+                int offset = worker;
+                tasks.add(() -> parsePages(job, pdf, pageCount, offset, parsers, pages, cancelled));
+            }
+            tasks.add(() -> splitPages(job, pages, parsers, chunks, cancelled));
+            for (int writer = 0; writer < writers; writer++) tasks.add(() -> writeChunks(job, chunks, cancelled));
+            tasks.forEach(completion::submit);
+            boolean finished = false;
+            try {
+                for (int done = 0; done < tasks.size(); done++) completion.take().get();
+                finished = true;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) throw cause;
+                throw e;
+            } finally {
+                // set before interrupting, so stages that swallow the interrupt still see it at their next poll
+                if (!finished) {
+                    cancelled.set(true);
+                    stages.shutdownNow();
+                }
+            }
+        }
+    }
+
+    private Void parsePages(IngestionJob job, Path pdf, int pageCount, int offset, int stride,
+                            BlockingQueue<List<Document>> pages, AtomicBoolean cancelled) throws IOException, InterruptedException {
+        try (PDDocument document = load(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = offset + 1; page <= pageCount; page += stride) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                String text = stripper.getText(document);
+                if (!text.isBlank()) put(pages, List.of(new Document(text, pageMetadata(job, page))), cancelled);
+                job.pageParsed();
+            }
+        } finally {
+            end(pages, cancelled);
+        }
+        return null;
+    }
+
+    private Void splitPages(IngestionJob job, BlockingQueue<List<Document>> pages, int producers,
+                            BlockingQueue<List<Document>> chunks, AtomicBoolean cancelled) throws InterruptedException {
+        TokenTextSplitter splitter = new TokenTextSplitter();
+        List<Document> batch = new ArrayList<>(batchSize);
+        try {
+            for (int finished = 0; finished < producers; ) {
+                List<Document> page = take(pages, cancelled);
+                if (page == END) {
+                    finished++;
+                    continue;
+                }
+                List<Document> split = splitter.apply(page);
+                job.chunksSplit(split.size());
+                for (Document chunk : split) {
+                    batch.add(chunk);
+                    if (batch.size() == batchSize) {
+                        put(chunks, batch, cancelled);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) put(chunks, batch, cancelled);
+        } finally {
+            for (int writer = 0; writer < writers; writer++) end(chunks, cancelled);
+        }
+        return null;
+    }
+
+    private Void writeChunks(IngestionJob job, BlockingQueue<List<Document>> chunks, AtomicBoolean cancelled)
+            throws InterruptedException {
+        for (List<Document> batch = take(chunks, cancelled); batch != END; batch = take(chunks, cancelled)) {
+            // writer threads do not inherit the request's scope, so embed at ingestion priority explicitly
+            List<Document> documents = batch;
+            Priority.INGESTION.run(() -> vectorStore.add(documents));
+            job.chunksStored(batch.size());
+        }
+        return null;
+    }
+
+    private static Map<String, Object> pageMetadata(IngestionJob job, int page) {
+        Map<String, Object> metadata = new HashMap<>(Map.of(SOURCE, job.getSource(), PAGE_NUMBER, page,
+                INGESTED_AT, job.getSubmittedAt().toEpochMilli()));
+        if (job.getTenant() != null) metadata.put(TENANT, job.getTenant());
+        return metadata;
+    }
+
+    private static void put(BlockingQueue<List<Document>> queue, List<Document> item, AtomicBoolean cancelled)
+            throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (cancelled.get()) throw new CancellationException();
+        }
+    }
+
+    private static List<Document> take(BlockingQueue<List<Document>> queue, AtomicBoolean cancelled) throws InterruptedException {
+        while (true) {
+            List<Document> item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) return item;
+            if (cancelled.get()) throw new CancellationException();
+        }
+    }
+
+    /**
+     * Tells the next stage this producer is done, unless the job is being torn down and nobody reads it.
+     */
+    private static void end(BlockingQueue<List<Document>> queue, AtomicBoolean cancelled) {
+        if (cancelled.get() || Thread.currentThread().isInterrupted()) return;
+        try {
+            put(queue, END, cancelled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException ignored) {
+            // torn down while waiting for room
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private static PDDocument load(Path pdf) throws IOException {
+        return Loader.loadPDF(pdf.toFile(), (String) null, null, null, IOUtils.createTempFileOnlyStreamCache());
+    }
+}
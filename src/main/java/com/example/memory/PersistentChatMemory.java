@@ -0,0 +1,324 @@
+package com.example.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ChatMemory} with a bounded hot tier and write-behind persistence. Each session keeps an
+ * in-memory window of at most {@code maxMessages} messages and {@code maxTokens} estimated tokens; the
+ * windows live in a Caffeine cache bounded by {@code maxBytes} across all sessions and expired after
+ * {@code idleTtl} without access. Evicted sessions are reloaded from the database on their next access.
+ * New messages are queued and written in batches by a background flusher, which also trims persisted
+ * history to the per-session cap and drops sessions idle for longer than {@code retention}. Messages
+ * handed out carry their sequence number under {@link #SEQ}, a stable id within the session.
+ */
+@Slf4j
+public class PersistentChatMemory implements ChatMemory, AutoCloseable {
+
+    public static final String SEQ = "chat_memory_seq";
+
+    private static final int MESSAGE_OVERHEAD_BYTES = 64;
+    private static final int SESSION_OVERHEAD_BYTES = 128;
+
+    private final StoredChatMessageRepository repository;
+    private final int maxMessages;
+    private final int maxTokens;
+    private final int batchSize;
+    private final Duration retention;
+    private final Cache<String, Session> sessions;
+    private final ConcurrentLinkedQueue<StoredChatMessage> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+            .name("chat-memory-flush").daemon().factory());
+
+    private PersistentChatMemory(Builder builder) {
+        this.repository = builder.repository;
+        this.maxMessages = builder.maxMessages;
+        this.maxTokens = builder.maxTokens;
+        this.batchSize = builder.batchSize;
+        this.retention = builder.retention;
+        this.sessions = Caffeine.newBuilder()
+                .maximumWeight(builder.maxBytes)
+                .weigher((String sessionId, Session session) -> session.bytes())
+                .expireAfterAccess(builder.idleTtl)
+                .removalListener((String sessionId, Session session, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) log.debug("Evicted chat session {} from memory ({})", sessionId, cause);
+                })
+                .recordStats()
+                .build();
+        if (builder.meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(builder.meterRegistry, sessions, "chat.memory");
+            Gauge.builder("chat.memory.sessions", sessions, Cache::estimatedSize)
+                    .description("Sessions held in the in-memory window")
+                    .register(builder.meterRegistry);
+            Gauge.builder("chat.memory.bytes", sessions, cache -> cache.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                    .description("Approximate bytes held by in-memory session windows")
+                    .baseUnit("bytes")
+                    .register(builder.meterRegistry);
+            Gauge.builder("chat.memory.pending", pendingCount, AtomicInteger::get)
+                    .description("Messages waiting to be written to the database")
+                    .register(builder.meterRegistry);
+        }
+        long interval = builder.flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        long sweep = Math.max(interval, Math.min(retention.toMillis(), Duration.ofHours(1).toMillis()));
+        flusher.scheduleWithFixedDelay(this::purgeExpired, sweep, sweep, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(StoredChatMessageRepository repository) {
+        return new Builder(repository);
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        Session session = sessions.get(conversationId, this::load);
+        Instant now = Instant.now();
+        synchronized (session) {
+            for (Message message : messages) {
+                if (!isPersistable(message)) continue;
+                long seq = ++session.lastSeq;
+                session.append(toMessage(message.getMessageType(), message.getText(), seq));
+                pending.add(new StoredChatMessage(conversationId, seq, message.getMessageType(), message.getText(), now));
+                pendingCount.incrementAndGet();
+            }
+            session.trim(maxMessages, maxTokens);
+        }
+        // re-insert so the cache re-weighs the grown window against the global budget
+        sessions.asMap().replace(conversationId, session, session);
+        if (pendingCount.get() >= batchSize) flusher.execute(this::flushQuietly);
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        Session session = sessions.get(conversationId, this::load);
+        synchronized (session) {
+            List<Message> window = new ArrayList<>(session.messages);
+            return lastN >= window.size() ? window : window.subList(window.size() - lastN, window.size());
+        }
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        flushLock.lock();
+        try {
+            sessions.invalidate(conversationId);
+            pending.removeIf(message -> message.getSessionId().equals(conversationId));
+            pendingCount.set(pending.size());
+            repository.deleteBySession(conversationId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Long> lastSeqBySession = new HashMap<>();
+            List<StoredChatMessage> batch = new ArrayList<>(batchSize);
+            // messages leave the queue only after they are committed, so a concurrent load always finds
+            // each one in the queue, the database, or both
+            for (StoredChatMessage message : pending) {
+                batch.add(message);
+                lastSeqBySession.merge(message.getSessionId(), message.getSeq(), Math::max);
+                if (batch.size() == batchSize) {
+                    persist(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) persist(batch);
+            lastSeqBySession.forEach((sessionId, lastSeq) -> {
+                if (lastSeq > maxMessages) repository.deleteBySessionUpTo(sessionId, lastSeq - maxMessages);
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void persist(List<StoredChatMessage> batch) {
+        repository.saveAll(batch);
+        // only the flusher and clear() remove from the queue, both under flushLock, so its head is this batch
+        for (int i = 0; i < batch.size(); i++) pending.poll();
+        pendingCount.addAndGet(-batch.size());
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to persist chat messages; {} still pending", pendingCount.get(), e);
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            int deleted = repository.deleteSessionsIdleSince(Instant.now().minus(retention));
+            if (deleted > 0) log.info("Purged {} chat messages from sessions idle longer than {}", deleted, retention);
+            sessions.cleanUp();
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge expired chat sessions", e);
+        }
+    }
+
+    private Session load(String conversationId) {
+        // read the queue before the database: a message flushed in between then shows up in both reads
+        // rather than in neither, and merging by seq drops the duplicate
+        TreeMap<Long, StoredChatMessage> history = new TreeMap<>();
+        for (StoredChatMessage queued : pending) {
+            if (queued.getSessionId().equals(conversationId)) history.put(queued.getSeq(), queued);
+        }
+        long maxSeq = repository.findMaxSeq(conversationId);
+        for (StoredChatMessage stored : repository.findBySessionIdOrderBySeqDesc(conversationId, PageRequest.of(0, maxMessages))) {
+            history.putIfAbsent(stored.getSeq(), stored);
+        }
+        Session session = new Session();
+        session.lastSeq = history.isEmpty() ? maxSeq : Math.max(maxSeq, history.lastKey());
+        for (StoredChatMessage stored : history.values()) {
+            session.append(toMessage(stored.getMessageType(), stored.getContent(), stored.getSeq()));
+        }
+        session.trim(maxMessages, maxTokens);
+        return session;
+    }
+
+    private static boolean isPersistable(Message message) {
+        return message.getText() != null && switch (message.getMessageType()) {
+            case USER, ASSISTANT, SYSTEM -> true;
+            default -> false;
+        };
+    }
+
+    private static Message toMessage(MessageType type, String content, long seq) {
+        Message message = switch (type) {
+            case USER -> new UserMessage(content);
+            case SYSTEM -> new SystemMessage(content);
+            default -> new AssistantMessage(content);
+        };
+        message.getMetadata().put(SEQ, seq);
+        return message;
+    }
+
+    private static final class Session {
+
+        private final ArrayDeque<Message> messages = new ArrayDeque<>();
+        private long lastSeq;
+        private int tokens;
+        private int chars;
+
+        void append(Message message) {
+            messages.addLast(message);
+            tokens += TokenEstimates.of(message);
+            chars += message.getText().length();
+        }
+
+        void trim(int maxMessages, int maxTokens) {
+            while (messages.size() > 1 && (messages.size() > maxMessages || tokens > maxTokens)) {
+                Message dropped = messages.removeFirst();
+                tokens -= TokenEstimates.of(dropped);
+                chars -= dropped.getText().length();
+            }
+        }
+
+        int bytes() {
+            return SESSION_OVERHEAD_BYTES + messages.size() * MESSAGE_OVERHEAD_BYTES + chars * 2;
+        }
+    }
+
+    public static final class Builder {
+
+        private final StoredChatMessageRepository repository;
+        private int maxMessages = 100;
+        private int maxTokens = 8000;
+        private long maxBytes = 64L * 1024 * 1024;
+        private Duration idleTtl = Duration.ofMinutes(30);
+        private Duration retention = Duration.ofDays(7);
+        private Duration flushInterval = Duration.ofMillis(500);
+        private int batchSize = 100;
+        private MeterRegistry meterRegistry;
+
+        private Builder(StoredChatMessageRepository repository) {
+            this.repository = repository;
+        }
+
+        public Builder maxMessages(int maxMessages) {
+            if (maxMessages < 1) throw new IllegalArgumentException("maxMessages must be positive");
+            this.maxMessages = maxMessages;
+            return this;
+        }
+
+        public Builder maxTokens(int maxTokens) {
+            if (maxTokens < 1) throw new IllegalArgumentException("maxTokens must be positive");
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        public Builder maxBytes(long maxBytes) {
+            if (maxBytes < 1) throw new IllegalArgumentException("maxBytes must be positive");
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public Builder idleTtl(Duration idleTtl) {
+            this.idleTtl = idleTtl;
+            return this;
+        }
+
+        public Builder retention(Duration retention) {
+            this.retention = retention;
+            return this;
+        }
+
+        public Builder flushInterval(Duration flushInterval) {
+            if (flushInterval.isNegative() || flushInterval.isZero()) throw new IllegalArgumentException("flushInterval must be positive");
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) throw new IllegalArgumentException("batchSize must be positive");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public PersistentChatMemory build() {
+            return new PersistentChatMemory(this);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.memory;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.springframework.ai.chat.messages.MessageType;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "chat_messages", indexes = @Index(name = "idx_chat_messages_session_seq", columnList = "session_id, seq"))
+public class StoredChatMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_messages_seq")
+    @SequenceGenerator(name = "chat_messages_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private String sessionId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", nullable = false, length = 16)
+    private MessageType messageType;
+
+    @Lob
+    @Column(nullable = false)
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected StoredChatMessage() {
+    }
+
+    public StoredChatMessage(String sessionId, long seq, MessageType messageType, String content, Instant createdAt) {
+        this.sessionId = sessionId;
+        this.seq = seq;
+        this.messageType = messageType;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public MessageType getMessageType() {
+        return messageType;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.memory;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StoredChatMessageRepository extends JpaRepository<StoredChatMessage, Long> {
+
+    List<StoredChatMessage> findBySessionIdOrderBySeqDesc(String sessionId, Pageable pageable);
+
+    @Query("select coalesce(max(m.seq), 0) from StoredChatMessage m where m.sessionId = :sessionId")
+    long findMaxSeq(String sessionId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from StoredChatMessage m where m.sessionId = :sessionId")
+    int deleteBySession(String sessionId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from StoredChatMessage m where m.sessionId = :sessionId and m.seq <= :seq")
+    int deleteBySessionUpTo(String sessionId, long seq);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            delete from StoredChatMessage m where m.sessionId in (
+                select s.sessionId from StoredChatMessage s group by s.sessionId having max(s.createdAt) < :cutoff)""")
+    int deleteSessionsIdleSince(Instant cutoff);
+}
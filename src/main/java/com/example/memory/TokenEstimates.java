@@ -0,0 +1,23 @@
+package com.example.memory;
+
+import org.springframework.ai.chat.messages.Message;
+
+/**
+ * Cheap token estimate (about four characters per token for English text under the OpenAI tokenizers),
+ * good enough for budgeting prompt windows without running a tokenizer on every turn.
+ */
+final class TokenEstimates {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimates() {
+    }
+
+    static int of(String text) {
+        return text == null ? 0 : text.length() / CHARS_PER_TOKEN + 1;
+    }
+
+    static int of(Message message) {
+        return of(message.getText());
+    }
+}
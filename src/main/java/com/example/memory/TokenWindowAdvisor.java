@@ -0,0 +1,251 @@
+package com.example.memory;
+
+import com.example.admission.Priority;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.client.advisor.api.AdvisedResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAroundAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAroundAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAroundAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAroundAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the history sent to the model within a token budget. Runs after the chat memory advisor has
+ * added the session history: the newest messages that fit in {@code windowTokens} are sent verbatim and
+ * everything older is replaced by a running summary. When turns slide out of the window they are folded
+ * into the summary by a background call that only sends the previous summary plus the new turns, so the
+ * request path never waits for summarization. Turns not folded yet are still sent verbatim. Progress is
+ * tracked by the {@link PersistentChatMemory#SEQ} of the last folded message, so repeated turns such as
+ * "ok" cannot be mistaken for one another.
+ */
+@Slf4j
+public class TokenWindowAdvisor implements CallAroundAdvisor, StreamAroundAdvisor, AutoCloseable {
+
+    private static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+    private static final String SUMMARIZE_PROMPT = """
+            Update the running summary of a conversation with the new turns below. Keep facts, decisions, \
+            names and open questions; drop pleasantries. Reply with the updated summary only, at most %d words.
+
+            Current summary:
+            %s
+
+            New turns:
+            %s""";
+
+    private final ChatModel chatModel;
+    private final int windowTokens;
+    private final int summaryWords;
+    private final int order;
+    private final Cache<String, Conversation> conversations;
+    private final ExecutorService summarizer = Executors.newVirtualThreadPerTaskExecutor();
+    private final DistributionSummary promptTokens;
+    private final Timer summarizeTimer;
+
+    private TokenWindowAdvisor(Builder builder) {
+        this.chatModel = builder.chatModel;
+        this.windowTokens = builder.windowTokens;
+        this.summaryWords = builder.summaryWords;
+        this.order = builder.order;
+        this.conversations = Caffeine.newBuilder()
+                .maximumSize(builder.maxConversations)
+                .expireAfterAccess(builder.idleTtl)
+                .build();
+        if (builder.meterRegistry != null) {
+            this.promptTokens = DistributionSummary.builder("chat.memory.window.tokens")
+                    .description("Estimated history tokens sent to the model per request")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(builder.meterRegistry);
+            this.summarizeTimer = Timer.builder("chat.memory.summarize")
+                    .description("Background summary updates")
+                    .register(builder.meterRegistry);
+        } else {
+            this.promptTokens = null;
+            this.summarizeTimer = null;
+        }
+    }
+
+    public static Builder builder(ChatModel chatModel) {
+        return new Builder(chatModel);
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        return chain.nextAroundCall(fit(advisedRequest));
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        return chain.nextAroundStream(fit(advisedRequest));
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public void close() {
+        summarizer.close();
+    }
+
+    private AdvisedRequest fit(AdvisedRequest request) {
+        Object conversationId = request.adviseContext().get(AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY);
+        List<Message> history = request.messages();
+        if (conversationId == null || history.isEmpty()) return request;
+
+        int start = history.size();
+        int tokens = 0;
+        while (start > 0) {
+            int next = TokenEstimates.of(history.get(start - 1));
+            if (tokens + next > windowTokens && start < history.size()) break;
+            tokens += next;
+            start--;
+        }
+        if (promptTokens != null) promptTokens.record(tokens);
+        Conversation conversation = conversations.get(conversationId.toString(), id -> new Conversation());
+        conversation.restartIfCleared(seq(history.getLast()));
+        if (start == 0 && conversation.summary == null) return request;
+
+        List<Message> unfolded = conversation.unfolded(history.subList(0, start));
+        if (!unfolded.isEmpty()) fold(conversationId.toString(), conversation, unfolded);
+
+        List<Message> messages = new ArrayList<>(unfolded.size() + history.size() - start + 1);
+        if (conversation.summary != null) messages.add(new SystemMessage(SUMMARY_PREFIX + conversation.summary));
+        messages.addAll(unfolded);
+        messages.addAll(history.subList(start, history.size()));
+        return AdvisedRequest.from(request).messages(messages).build();
+    }
+
+    private void fold(String conversationId, Conversation conversation, List<Message> turns) {
+        if (!conversation.folding.compareAndSet(false, true)) return;
+        List<Message> snapshot = List.copyOf(turns);
+        summarizer.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                StringBuilder transcript = new StringBuilder();
+                for (Message turn : snapshot) {
+                    transcript.append(turn.getMessageType().getValue()).append(": ").append(turn.getText()).append('\n');
+                }
+                String previous = conversation.summary == null ? "(none)" : conversation.summary;
+                String updated = Priority.INGESTION.call(() -> chatModel.call(SUMMARIZE_PROMPT.formatted(summaryWords, previous, transcript)));
+                conversation.foldedUpTo(updated, seq(snapshot.getLast()));
+            } catch (RuntimeException e) {
+                log.warn("Failed to update summary for conversation {}", conversationId, e);
+            } finally {
+                conversation.folding.set(false);
+                if (summarizeTimer != null) summarizeTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            }
+        });
+    }
+
+    private static long seq(Message message) {
+        return message.getMetadata().get(PersistentChatMemory.SEQ) instanceof Number seq ? seq.longValue() : -1;
+    }
+
+    private static final class Conversation {
+
+        private final AtomicBoolean folding = new AtomicBoolean();
+        private volatile String summary;
+        private volatile long foldedSeq;
+
+        /**
+         * Overflowing messages newer than the last one folded into the summary. Seqs grow with the history,
+         * so these are a suffix of the overflow; messages without a seq are never considered folded.
+         */
+        List<Message> unfolded(List<Message> overflow) {
+            long folded = foldedSeq;
+            for (int i = 0; i < overflow.size(); i++) {
+                long seq = seq(overflow.get(i));
+                if (seq < 0 || seq > folded) return overflow.subList(i, overflow.size());
+            }
+            return List.of();
+        }
+
+        /** A cleared session numbers its messages from 1 again, so a summary of the old history no longer applies. */
+        synchronized void restartIfCleared(long newestSeq) {
+            if (newestSeq >= 0 && newestSeq < foldedSeq) {
+                summary = null;
+                foldedSeq = 0;
+            }
+        }
+
+        synchronized void foldedUpTo(String updatedSummary, long lastSeq) {
+            summary = updatedSummary;
+            foldedSeq = Math.max(foldedSeq, lastSeq);
+        }
+    }
+
+    public static final class Builder {
+
+        private final ChatModel chatModel;
+        private int windowTokens = 3000;
+        private int summaryWords = 250;
+        private int maxConversations = 10_000;
+        private Duration idleTtl = Duration.ofMinutes(30);
+        private int order = Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 1;
+        private MeterRegistry meterRegistry;
+
+        private Builder(ChatModel chatModel) {
+            this.chatModel = chatModel;
+        }
+
+        public Builder windowTokens(int windowTokens) {
+            if (windowTokens < 1) throw new IllegalArgumentException("windowTokens must be positive");
+            this.windowTokens = windowTokens;
+            return this;
+        }
+
+        public Builder summaryWords(int summaryWords) {
+            if (summaryWords < 1) throw new IllegalArgumentException("summaryWords must be positive");
+            this.summaryWords = summaryWords;
+            return this;
+        }
+
+        public Builder maxConversations(int maxConversations) {
+            this.maxConversations = maxConversations;
+            return this;
+        }
+
+        public Builder idleTtl(Duration idleTtl) {
+            this.idleTtl = idleTtl;
+            return this;
+        }
+
+        public Builder order(int order) {
+            this.order = order;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public TokenWindowAdvisor build() {
+            return new TokenWindowAdvisor(this);
+        }
+    }
+}
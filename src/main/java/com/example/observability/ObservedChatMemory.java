@@ -0,0 +1,44 @@
+package com.example.observability;
+
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * {@link ChatMemory} decorator that records history reads as {@code memory_load} and appends as
+ * {@code memory_write}.
+ */
+public class ObservedChatMemory implements ChatMemory, AutoCloseable {
+
+    private final ChatMemory delegate;
+    private final PipelineMetrics metrics;
+
+    public ObservedChatMemory(ChatMemory delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        metrics.record(PipelineMetrics.Stage.MEMORY_WRITE, PipelineMetrics.NO_MODEL, () -> {
+            delegate.add(conversationId, messages);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        return metrics.record(PipelineMetrics.Stage.MEMORY_LOAD, PipelineMetrics.NO_MODEL, () -> delegate.get(conversationId, lastN));
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        delegate.clear(conversationId);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) closeable.close();
+    }
+}
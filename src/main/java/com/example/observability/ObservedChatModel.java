@@ -0,0 +1,118 @@
+package com.example.observability;
+
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link ChatModel} decorator that records prompt assembly (since {@link PromptAssemblyAdvisor}), total
+ * completion time, time to first token for streams, completion tokens per second and the token counts
+ * the model reports. Tokens per second is measured from the first token for streams and over the whole
+ * call otherwise. A stream that reports no usage counts one completion token per content chunk.
+ */
+public class ObservedChatModel implements ChatModel {
+
+    private static final String UNKNOWN_MODEL = "unknown";
+
+    private final ChatModel delegate;
+    private final PipelineMetrics metrics;
+
+    public ObservedChatModel(ChatModel delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String endpoint = PipelineMetrics.endpoint();
+        String model = model(prompt);
+        PromptAssemblyAdvisor.started().ifPresent(started ->
+                metrics.record(PipelineMetrics.Stage.PROMPT_ASSEMBLY, endpoint, model, System.nanoTime() - started));
+        long start = System.nanoTime();
+        ChatResponse response = delegate.call(prompt);
+        long elapsed = System.nanoTime() - start;
+        metrics.record(PipelineMetrics.Stage.COMPLETION, endpoint, model, elapsed);
+        Usage usage = usage(response);
+        if (usage != null) recordTokens(endpoint, model, PipelineMetrics.currentRole(), usage, -1, elapsed);
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // endpoint and role are only visible on the assembling thread, so read them before subscribing
+        String endpoint = PipelineMetrics.endpoint();
+        String role = PipelineMetrics.currentRole();
+        String model = model(prompt);
+        return Flux.deferContextual(context -> {
+            PromptAssemblyAdvisor.started(context).ifPresent(started ->
+                    metrics.record(PipelineMetrics.Stage.PROMPT_ASSEMBLY, endpoint, model, System.nanoTime() - started));
+            long start = System.nanoTime();
+            AtomicLong firstToken = new AtomicLong();
+            AtomicLong chunks = new AtomicLong();
+            AtomicReference<Usage> usage = new AtomicReference<>();
+            return delegate.stream(prompt)
+                    .doOnNext(response -> {
+                        if (firstToken.get() == 0 && hasContent(response)) {
+                            firstToken.set(System.nanoTime());
+                            metrics.record(PipelineMetrics.Stage.TIME_TO_FIRST_TOKEN, endpoint, model, firstToken.get() - start);
+                        }
+                        if (hasContent(response)) chunks.incrementAndGet();
+                        Usage reported = usage(response);
+                        if (reported != null) usage.set(reported);
+                    })
+                    .doOnComplete(() -> {
+                        long end = System.nanoTime();
+                        metrics.record(PipelineMetrics.Stage.COMPLETION, endpoint, model, end - start);
+                        long generating = firstToken.get() == 0 ? 0 : end - firstToken.get();
+                        recordTokens(endpoint, model, role, usage.get(), chunks.get(), generating);
+                    });
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private void recordTokens(String endpoint, String model, String role, Usage usage, long chunks, long generatingNanos) {
+        long completion = chunks;
+        if (usage != null) {
+            long prompt = longValue(usage.getPromptTokens());
+            completion = longValue(usage.getTotalTokens()) - prompt;
+            metrics.tokens("prompt", endpoint, model, role, prompt);
+        }
+        metrics.tokens("completion", endpoint, model, role, completion);
+        if (completion > 0 && generatingNanos > 0) {
+            metrics.tokensPerSecond(endpoint, model, completion * (double) TimeUnit.SECONDS.toNanos(1) / generatingNanos);
+        }
+    }
+
+    private String model(Prompt prompt) {
+        ChatOptions options = prompt.getOptions();
+        if (options != null && options.getModel() != null) return options.getModel();
+        ChatOptions defaults = delegate.getDefaultOptions();
+        return defaults != null && defaults.getModel() != null ? defaults.getModel() : UNKNOWN_MODEL;
+    }
+
+    private static Usage usage(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) return null;
+        Usage usage = response.getMetadata().getUsage();
+        return usage != null && longValue(usage.getTotalTokens()) > 0 ? usage : null;
+    }
+
+    private static boolean hasContent(ChatResponse response) {
+        return response.getResult() != null && response.getResult().getOutput() != null
+                && response.getResult().getOutput().getText() != null && !response.getResult().getOutput().getText().isEmpty();
+    }
+
+    private static long longValue(Number value) {
+        return value == null ? 0 : value.longValue();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.observability;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} decorator that records every embedding, cache hits included, as the
+ * {@code embedding} stage of the calling endpoint.
+ */
+public class ObservedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final String modelName;
+    private final PipelineMetrics metrics;
+
+    public ObservedEmbeddingModel(EmbeddingModel delegate, String modelName, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.modelName = modelName;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return metrics.record(PipelineMetrics.Stage.EMBEDDING, modelName, () -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return metrics.record(PipelineMetrics.Stage.EMBEDDING, modelName, () -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.observability;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+
+/**
+ * {@link VectorStore} decorator that records each similarity search as the {@code vector_search} stage.
+ * The time includes embedding the query, which is also recorded on its own as {@code embedding}.
+ */
+public class ObservedVectorStore implements VectorStore, AutoCloseable {
+
+    private final VectorStore delegate;
+    private final PipelineMetrics metrics;
+
+    public ObservedVectorStore(VectorStore delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return metrics.record(PipelineMetrics.Stage.VECTOR_SEARCH, PipelineMetrics.NO_MODEL, () -> delegate.similaritySearch(request));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) closeable.close();
+    }
+}
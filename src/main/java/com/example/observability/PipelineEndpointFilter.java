@@ -0,0 +1,38 @@
+package com.example.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the request's pipeline endpoint for the duration of the request, so every stage recorded on its
+ * behalf by {@link PipelineMetrics} is tagged with it.
+ */
+@Component
+public class PipelineEndpointFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = PipelineMetrics.endpointOf(request.getRequestURI().substring(request.getContextPath().length()));
+        if (PipelineMetrics.OTHER.equals(endpoint)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            PipelineMetrics.bind(endpoint).call(() -> {
+                chain.doFilter(request, response);
+                return null;
+            });
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+    }
+}
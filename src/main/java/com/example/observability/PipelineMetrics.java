@@ -0,0 +1,133 @@
+package com.example.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.entity.ChatUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Latency of each stage of the chat and RAG pipelines as {@code ai.pipeline.stage} timers, tagged by
+ * stage, endpoint and model, with percentiles and a percentile histogram. Completion throughput goes to
+ * {@code ai.pipeline.tokens.per.second}; prompt and completion tokens are counted in {@code ai.tokens} by
+ * user role. Stages that call no model are tagged {@code model=none}.
+ * <p>
+ * The endpoint is the one bound by {@link PipelineEndpointFilter} on the request thread; work on other
+ * threads (background summaries, ingestion writers) is tagged {@code other}.
+ */
+public class PipelineMetrics {
+
+    public static final String NO_MODEL = "none";
+    public static final String OTHER = "other";
+
+    private static final ScopedValue<String> ENDPOINT = ScopedValue.newInstance();
+    private static final Map<String, String> ENDPOINTS = new LinkedHashMap<>();
+
+    static {
+        ENDPOINTS.put("/api/ai/chat/stream", "chat.stream");
+        ENDPOINTS.put("/api/ai/chat", "chat");
+        ENDPOINTS.put("/api/ai/rag/query", "rag.query");
+        ENDPOINTS.put("/api/ai/rag/ingest", "rag.ingest");
+        ENDPOINTS.put("/api/ai/embed", "embed");
+    }
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T record(Stage stage, String model, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(stage, model, System.nanoTime() - start);
+        }
+    }
+
+    public void record(Stage stage, String model, long nanos) {
+        record(stage, endpoint(), model, nanos);
+    }
+
+    public void record(Stage stage, String endpoint, String model, long nanos) {
+        Timer.builder("ai.pipeline.stage")
+                .description("Latency of one chat/RAG pipeline stage")
+                .tag("stage", stage.tag())
+                .tag("endpoint", endpoint)
+                .tag("model", model)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    public void tokensPerSecond(String endpoint, String model, double rate) {
+        DistributionSummary.builder("ai.pipeline.tokens.per.second")
+                .description("Completion tokens generated per second of completion time")
+                .tag("endpoint", endpoint)
+                .tag("model", model)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(rate);
+    }
+
+    public void tokens(String type, String endpoint, String model, String role, long count) {
+        if (count <= 0) return;
+        Counter.builder("ai.tokens")
+                .description("Prompt and completion tokens reported by the model")
+                .tag("type", type)
+                .tag("endpoint", endpoint)
+                .tag("model", model)
+                .tag("role", role)
+                .register(registry)
+                .increment(count);
+    }
+
+    public static String endpoint() {
+        return ENDPOINT.isBound() ? ENDPOINT.get() : OTHER;
+    }
+
+    static ScopedValue.Carrier bind(String endpoint) {
+        return ScopedValue.where(ENDPOINT, endpoint);
+    }
+
+    public static String endpointOf(String path) {
+        for (Map.Entry<String, String> entry : ENDPOINTS.entrySet()) {
+            if (path.startsWith(entry.getKey())) return entry.getValue();
+        }
+        return OTHER;
+    }
+
+    /**
+     * Role of the authenticated user on the calling thread, {@code anonymous} if there is none.
+     */
+    public static String currentRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof ChatUser user) return user.getRole().name();
+        return "anonymous";
+    }
+
+    public enum Stage {
+        JWT,
+        MEMORY_LOAD,
+        EMBEDDING,
+        VECTOR_SEARCH,
+        PROMPT_ASSEMBLY,
+        TIME_TO_FIRST_TOKEN,
+        COMPLETION,
+        MEMORY_WRITE;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.observability;
+
+import org.springframework.ai.chat.client.advisor.api.AdvisedRequest;
+import org.springframework.ai.chat.client.advisor.api.AdvisedResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAroundAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAroundAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAroundAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAroundAdvisorChain;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Optional;
+
+/**
+ * Outermost advisor; marks when a request entered the advisor chain so {@link ObservedChatModel} can
+ * record everything up to the model call (memory, retrieval, window fitting) as prompt assembly. The mark
+ * is a scoped value for blocking calls and a Reactor context entry for streams.
+ */
+public class PromptAssemblyAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    private static final ScopedValue<Long> STARTED = ScopedValue.newInstance();
+    private static final String STARTED_KEY = PromptAssemblyAdvisor.class.getName() + ".started";
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        return ScopedValue.where(STARTED, System.nanoTime()).call(() -> chain.nextAroundCall(advisedRequest));
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        return Flux.defer(() -> chain.nextAroundStream(advisedRequest).contextWrite(Context.of(STARTED_KEY, System.nanoTime())));
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    static Optional<Long> started() {
+        return STARTED.isBound() ? Optional.of(STARTED.get()) : Optional.empty();
+    }
+
+    static Optional<Long> started(ContextView context) {
+        return context.getOrEmpty(STARTED_KEY);
+    }
+}
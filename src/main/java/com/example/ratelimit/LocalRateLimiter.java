@@ -0,0 +1,61 @@
+package com.example.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process {@link RateLimiter}. Each bucket is a single {@link AtomicLong} holding the theoretical arrival
+ * time of the generic cell rate algorithm, which is equivalent to a token bucket but updates with one CAS
+ * and no lock. Idle keys are dropped after {@code idleTtl}; a dropped bucket is full again, which is what
+ * it would have refilled to anyway once idle for longer than {@code capacity / refillPerSecond}. In-flight
+ * counts are never expired: a key is held only while it has requests in flight and removed when the last
+ * one releases, so a long stream cannot lose its count and let the user exceed the cap.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final Map<String, Integer> permits = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(Duration idleTtl, long maxKeys) {
+        this.buckets = Caffeine.newBuilder().expireAfterAccess(idleTtl).maximumSize(maxKeys).build();
+    }
+
+    @Override
+    public Duration tryConsume(String key, Bucket bucket, long cost) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        double nanosPerToken = 1e9 / bucket.refillPerSecond();
+        long increment = (long) (cost * nanosPerToken);
+        long tolerance = (long) (bucket.capacity() * nanosPerToken);
+        while (true) {
+            long now = System.nanoTime();
+            long current = arrival.get();
+            long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long next = start + increment;
+            long excess = next - now - tolerance;
+            if (excess > 0) return Duration.ofNanos(excess);
+            if (arrival.compareAndSet(current, next)) return Duration.ZERO;
+        }
+    }
+
+    @Override
+    public boolean tryAcquirePermit(String key, int maxConcurrent) {
+        boolean[] acquired = new boolean[1];
+        permits.compute(key, (k, inFlight) -> {
+            int current = inFlight == null ? 0 : inFlight;
+            if (current >= maxConcurrent) return inFlight;
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    @Override
+    public void releasePermit(String key) {
+        permits.computeIfPresent(key, (k, inFlight) -> inFlight > 1 ? inFlight - 1 : null);
+    }
+}
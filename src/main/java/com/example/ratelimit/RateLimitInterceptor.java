@@ -0,0 +1,130 @@
+package com.example.ratelimit;
+
+import com.example.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies per-user request budgets and concurrency caps to the LLM endpoints. A request costs its estimated
+ * prompt tokens (request body length / 4) plus the expected completion size, taken from a token bucket
+ * whose size depends on the caller's role. A concurrency permit is held until the response completes,
+ * including the asynchronous tail of streaming responses. The permit is checked first, so a request turned
+ * away for concurrency does not spend any of the budget.
+ */
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = RateLimitInterceptor.class.getName() + ".permit";
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final RateLimiter rateLimiter;
+    private final Map<String, Quota> quotas;
+    private final Quota defaultQuota;
+    private final long expectedCompletionTokens;
+    private final Counter rateRejected;
+    private final Counter concurrencyRejected;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter, Map<String, Quota> quotas, Quota defaultQuota,
+                                long expectedCompletionTokens, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.quotas = quotas;
+        this.defaultQuota = defaultQuota;
+        this.expectedCompletionTokens = expectedCompletionTokens;
+        this.rateRejected = Counter.builder("ratelimit.rejected").tag("reason", "rate").register(meterRegistry);
+        this.concurrencyRejected = Counter.builder("ratelimit.rejected").tag("reason", "concurrency").register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) return true;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) return true;
+
+        String user = authentication.getName();
+        Quota quota = quotaFor(authentication);
+        long promptTokens = Math.max(0, request.getContentLengthLong()) / CHARS_PER_TOKEN;
+        long cost = Math.min(quota.bucket().capacity(), 1 + promptTokens + expectedCompletionTokens);
+        if (!rateLimiter.tryAcquirePermit(user, quota.maxConcurrent())) {
+            concurrencyRejected.increment();
+            throw new RateLimitExceededException("Too many concurrent requests (limit " + quota.maxConcurrent() + ")", Duration.ofSeconds(1));
+        }
+        Duration wait = rateLimiter.tryConsume(user, quota.bucket(), cost);
+        if (!wait.isZero()) {
+            rateLimiter.releasePermit(user);
+            rateRejected.increment();
+            throw new RateLimitExceededException("Request budget exhausted", wait);
+        }
+        request.setAttribute(PERMIT, new Permit(user));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(request.getAttribute(PERMIT) instanceof Permit permit)) return;
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                permit.release();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                permit.release();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                permit.release();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.isAsyncStarted()) return;
+        if (request.getAttribute(PERMIT) instanceof Permit permit) permit.release();
+    }
+
+    private Quota quotaFor(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String role = authority.getAuthority();
+            Quota quota = quotas.get(role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role);
+            if (quota != null) return quota;
+        }
+        return defaultQuota;
+    }
+
+    public record Quota(RateLimiter.Bucket bucket, int maxConcurrent) {
+    }
+
+    private final class Permit {
+
+        private final String user;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String user) {
+            this.user = user;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) rateLimiter.releasePermit(user);
+        }
+    }
+}
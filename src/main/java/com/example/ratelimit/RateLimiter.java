@@ -0,0 +1,31 @@
+package com.example.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Request budget and concurrency bookkeeping per key. {@link LocalRateLimiter} keeps state in this JVM; an
+ * implementation backed by a shared store can replace it to enforce limits across instances.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes {@code cost} tokens from the bucket for {@code key}.
+     *
+     * @return {@link Duration#ZERO} if the tokens were taken, otherwise how long until they would be available
+     */
+    Duration tryConsume(String key, Bucket bucket, long cost);
+
+    boolean tryAcquirePermit(String key, int maxConcurrent);
+
+    void releasePermit(String key);
+
+    /**
+     * Token bucket holding at most {@code capacity} tokens, refilled at {@code refillPerSecond}.
+     */
+    record Bucket(long capacity, double refillPerSecond) {
+
+        public Bucket {
+            if (capacity < 1 || refillPerSecond <= 0) throw new IllegalArgumentException("Bucket capacity and refill rate must be positive");
+        }
+    }
+}
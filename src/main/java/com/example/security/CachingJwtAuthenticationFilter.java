@@ -0,0 +1,138 @@
+package com.example.security;
+
+import com.example.observability.PipelineMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Bearer-token authentication with two caches in front of the expensive steps. Verified tokens are cached
+ * by SHA-256 of the token, each entry expiring at the token's own {@code exp}, so the HMAC check and
+ * claim parsing run once per token. Resolved principals are cached by username for {@code principalTtl},
+ * so the {@link UserDetailsService} lookup runs at most once per user per TTL. {@link #evictUser} drops
+ * both for a user whose role or existence changed.
+ */
+@Slf4j
+@Component
+public class CachingJwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final UserDetailsService userDetailsService;
+    private final SecretKey signingKey;
+    private final Cache<String, VerifiedToken> tokens;
+    private final Cache<String, UserDetails> principals;
+    private final PipelineMetrics pipelineMetrics;
+
+    public CachingJwtAuthenticationFilter(UserDetailsService userDetailsService,
+                                          @Value("${app.jwt.secret}") String secret,
+                                          @Value("${app.security.token-cache.max-size:100000}") long maxTokens,
+                                          @Value("${app.security.principal-cache.ttl:PT30S}") Duration principalTtl,
+                                          ObjectProvider<MeterRegistry> meterRegistry,
+                                          ObjectProvider<PipelineMetrics> pipelineMetrics) {
+        this.userDetailsService = userDetailsService;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(Expiry.creating((String hash, VerifiedToken token) ->
+                        Duration.between(Instant.now(), token.expiresAt())))
+                .recordStats()
+                .build();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfterWrite(principalTtl)
+                .recordStats()
+                .build();
+        this.pipelineMetrics = pipelineMetrics.getIfAvailable();
+        meterRegistry.ifAvailable(registry -> {
+            CaffeineCacheMetrics.monitor(registry, tokens, "jwt.tokens");
+            CaffeineCacheMetrics.monitor(registry, principals, "jwt.principals");
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX) || SecurityContextHolder.getContext().getAuthentication() != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String token = header.substring(BEARER_PREFIX.length());
+        long start = System.nanoTime();
+        try {
+            VerifiedToken verified = tokens.get(sha256(token), hash -> verify(token));
+            UserDetails user = principals.get(verified.username(), userDetailsService::loadUserByUsername);
+            if (user.isEnabled() && user.isAccountNonLocked()) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+        }
+        if (pipelineMetrics != null) {
+            // runs before PipelineEndpointFilter binds the endpoint, so derive it from the path
+            String endpoint = PipelineMetrics.endpointOf(request.getRequestURI().substring(request.getContextPath().length()));
+            pipelineMetrics.record(PipelineMetrics.Stage.JWT, endpoint, PipelineMetrics.NO_MODEL, System.nanoTime() - start);
+        }
+        chain.doFilter(request, response);
+    }
+
+    public void evictUser(String username) {
+        principals.invalidate(username);
+        tokens.asMap().values().removeIf(token -> token.username().equals(username));
+    }
+
+    private VerifiedToken verify(String token) {
+        Claims claims = Jwts.parser().verifyWith(signingKey).build().parseSignedClaims(token).getPayload();
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            throw new IllegalArgumentException("Token has no subject or expiry");
+        }
+        return new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant());
+    }
+
+    private static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(String username, Instant expiresAt) {
+    }
+}
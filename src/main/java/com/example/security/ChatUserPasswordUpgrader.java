@@ -0,0 +1,40 @@
+package com.example.security;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stores the re-encoded hash that {@code DaoAuthenticationProvider} produces after a successful login
+ * against a hash whose BCrypt cost is below the current one.
+ */
+@Slf4j
+@Component
+public class ChatUserPasswordUpgrader implements UserDetailsPasswordService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final UserDetailsService userDetailsService;
+
+    public ChatUserPasswordUpgrader(@Lazy UserDetailsService userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        entityManager.createQuery("update ChatUser u set u.password = :password where u.username = :username")
+                .setParameter("password", newPassword)
+                .setParameter("username", user.getUsername())
+                .executeUpdate();
+        log.debug("Upgraded password hash for {}", user.getUsername());
+        return userDetailsService.loadUserByUsername(user.getUsername());
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.security;
+
+import com.example.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * BCrypt on a dedicated, bounded pool so that login storms cannot take every core away from chat traffic.
+ * Callers block (cheaply, on virtual threads) while at most {@code threads} hashes run; when
+ * {@code queueCapacity} more are already waiting, or a hash does not finish within {@code timeout}, the call
+ * fails fast with {@link ServiceOverloadedException}. The BCrypt cost is calibrated at startup so one hash
+ * takes about {@code targetLatency} on this hardware, and {@link #upgradeEncoding} reports hashes stored
+ * with a lower cost so they are re-hashed on the next successful login.
+ */
+@Slf4j
+public class OffloadedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejected;
+
+    private OffloadedPasswordEncoder(Builder builder) {
+        this.strength = builder.strength > 0 ? builder.strength
+                : calibrate(builder.targetLatency, builder.minStrength, builder.maxStrength);
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeout = builder.timeout;
+        this.executor = new ThreadPoolExecutor(builder.threads, builder.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(builder.queueCapacity), Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        if (builder.meterRegistry != null) {
+            this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(builder.meterRegistry);
+            this.matchTimer = Timer.builder("password.hash").tag("operation", "matches").register(builder.meterRegistry);
+            this.rejected = Counter.builder("password.hash.rejected")
+                    .description("Hash requests turned away because the pool was saturated or timed out")
+                    .register(builder.meterRegistry);
+            Gauge.builder("password.hash.queue", executor, pool -> pool.getQueue().size())
+                    .description("Hash requests waiting for a worker")
+                    .register(builder.meterRegistry);
+            Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(builder.meterRegistry);
+            Gauge.builder("password.hash.strength", this, encoder -> encoder.strength).register(builder.meterRegistry);
+        } else {
+            this.encodeTimer = null;
+            this.matchTimer = null;
+            this.rejected = null;
+        }
+        log.info("BCrypt cost {} with {} hashing threads", strength, builder.threads);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchTimer);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int strength() {
+        return strength;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> hash, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return hash.call();
+                } finally {
+                    if (timer != null) timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ServiceOverloadedException overloaded() {
+        if (rejected != null) rejected.increment();
+        return new ServiceOverloadedException("Too many concurrent logins, try again shortly", timeout);
+    }
+
+    /**
+     * Each BCrypt cost step doubles the work, so one measurement at {@code minStrength} fixes the cost whose
+     * hash time is closest to {@code target} without going over.
+     */
+    static int calibrate(Duration target, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        String encoded = probe.encode(CALIBRATION_PASSWORD);
+        long[] samples = new long[5];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            probe.matches(CALIBRATION_PASSWORD, encoded);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long median = Math.max(1, samples[samples.length / 2]);
+        int steps = (int) Math.floor(Math.log((double) target.toNanos() / median) / Math.log(2));
+        int strength = Math.clamp(minStrength + steps, minStrength, maxStrength);
+        log.info("BCrypt cost {} takes {} ms; calibrated cost {} for a {} ms target",
+                minStrength, TimeUnit.NANOSECONDS.toMillis(median), strength, target.toMillis());
+        return strength;
+    }
+
+    public static final class Builder {
+
+        private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int queueCapacity = 64;
+        private Duration timeout = Duration.ofSeconds(5);
+        private Duration targetLatency = Duration.ofMillis(250);
+        private int minStrength = 10;
+        private int maxStrength = 14;
+        private int strength;
+        private MeterRegistry meterRegistry;
+
+        private Builder() {
+        }
+
+        public Builder threads(int threads) {
+            if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be positive");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder targetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+            return this;
+        }
+
+        public Builder strengthRange(int minStrength, int maxStrength) {
+            if (minStrength < 4 || maxStrength > 31 || minStrength > maxStrength) {
+                throw new IllegalArgumentException("BCrypt cost range must be within 4..31");
+            }
+            this.minStrength = minStrength;
+            this.maxStrength = maxStrength;
+            return this;
+        }
+
+        /**
+         * Fixed BCrypt cost; skips calibration when positive.
+         */
+        public Builder strength(int strength) {
+            this.strength = strength;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public OffloadedPasswordEncoder build() {
+            return new OffloadedPasswordEncoder(this);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.security;
+
+import org.springframework.ai.entity.ChatUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which users may ingest into and query which tenants, from {@code app.tenancy.grants} entries of the form
+ * {@code username:tenant}. Being an admin does not imply membership unless
+ * {@code app.tenancy.admins-all-tenants} is set. A query that names no tenant is still limited, through
+ * {@link #readableTenants}, to the caller's tenants plus the untagged documents.
+ */
+@Component
+public class TenantAccess {
+
+    private final Map<String, Set<String>> tenantsByUser = new HashMap<>();
+    private final boolean adminsAllTenants;
+
+    public TenantAccess(@Value("${app.tenancy.grants:}") List<String> grants,
+                        @Value("${app.tenancy.admins-all-tenants:false}") boolean adminsAllTenants) {
+        for (String grant : grants) {
+            if (grant.isBlank()) continue;
+            int separator = grant.indexOf(':');
+            if (separator <= 0 || separator == grant.length() - 1) {
+                throw new IllegalArgumentException("app.tenancy.grants entries must be username:tenant, got " + grant);
+            }
+            tenantsByUser.computeIfAbsent(grant.substring(0, separator).trim(), user -> new HashSet<>())
+                    .add(grant.substring(separator + 1).trim());
+        }
+        this.adminsAllTenants = adminsAllTenants;
+    }
+
+    public boolean allows(ChatUser user, String tenant) {
+        if (tenant == null || tenant.isBlank()) return true;
+        if (user == null) return false;
+        if (adminsAllTenants && user.getRole() == ChatUser.Role.ADMIN) return true;
+        return tenantsByUser.getOrDefault(user.getUsername(), Set.of()).contains(tenant);
+    }
+
+    /**
+     * Tenants whose documents the user may retrieve, or {@code null} when the user may retrieve everything:
+     * an admin with {@code admins-all-tenants}, or no tenancy configured at all (then nothing can be tagged).
+     */
+    public Set<String> readableTenants(ChatUser user) {
+        if (tenantsByUser.isEmpty() && !adminsAllTenants) return null;
+        if (user == null) return Set.of();
+        if (adminsAllTenants && user.getRole() == ChatUser.Role.ADMIN) return null;
+        return Set.copyOf(tenantsByUser.getOrDefault(user.getUsername(), Set.of()));
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-sent event streams that outlive their HTTP connection. The upstream token flux is subscribed
+ * once, independent of any client; each token becomes an event with id {@code <streamId>:<seq>} kept in a
+ * replay ring of the last {@code replaySize} events. A client that reconnects with {@code Last-Event-ID}
+ * gets the events after that id from the ring and then the live tail, without a new model call. Each
+ * connection has a bounded buffer: with {@link OverflowPolicy#DISCONNECT} a client that falls behind is
+ * cut off (and can resume), the drop policies discard tokens instead. Idle connections get a comment
+ * line every {@code heartbeat} so proxies keep them open; the heartbeat ends with the event feed, so a
+ * connection closes once its events end, even if the final event was dropped. Only the user who opened a
+ * stream can resume it.
+ */
+@Slf4j
+@Service
+public class ResumableEventStreams implements AutoCloseable {
+
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+    public static final String TOKEN = "token";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+    public static final String RESET = "reset";
+
+    public enum OverflowPolicy {
+        DISCONNECT, DROP_OLDEST, DROP_LATEST
+    }
+
+    private final int replaySize;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration heartbeat;
+    private final Duration retention;
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+            .name("sse-stream-sweeper").daemon().factory());
+    private final Counter resumed;
+    private final Counter overflowed;
+
+    public ResumableEventStreams(@Value("${app.stream.replay-size:1024}") int replaySize,
+                                 @Value("${app.stream.buffer-size:256}") int bufferSize,
+                                 @Value("${app.stream.overflow-policy:disconnect}") String overflowPolicy,
+                                 @Value("${app.stream.heartbeat:PT15S}") Duration heartbeat,
+                                 @Value("${app.stream.retention:PT2M}") Duration retention,
+                                 MeterRegistry meterRegistry) {
+        this.replaySize = replaySize;
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.toUpperCase(Locale.ROOT));
+        this.heartbeat = heartbeat;
+        this.retention = retention;
+        Gauge.builder("sse.streams", streams, Map::size)
+                .description("Streams held for delivery or resume")
+                .register(meterRegistry);
+        this.resumed = Counter.builder("sse.resumed").description("Connections resumed from Last-Event-ID").register(meterRegistry);
+        this.overflowed = Counter.builder("sse.overflow")
+                .description("Connections cut off or tokens dropped because the client fell behind")
+                .tag("policy", this.overflowPolicy.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        long sweep = Math.max(1, retention.toMillis() / 4);
+        sweeper.scheduleWithFixedDelay(this::sweep, sweep, sweep, TimeUnit.MILLISECONDS);
+    }
+
+    public Flux<ServerSentEvent<String>> open(Flux<String> tokens, String owner) {
+        Stream stream = new Stream(UUID.randomUUID().toString(), owner, replaySize);
+        streams.put(stream.id, stream);
+        stream.upstream = tokens.subscribe(stream::next, stream::fail, stream::complete);
+        return connect(stream, 0);
+    }
+
+    public Optional<Flux<ServerSentEvent<String>>> resume(String lastEventId, String owner) {
+        int separator = lastEventId.lastIndexOf(':');
+        if (separator < 0) return Optional.empty();
+        Stream stream = streams.get(lastEventId.substring(0, separator));
+        // someone else's stream looks the same as an unknown one
+        if (stream == null || !Objects.equals(stream.owner, owner)) return Optional.empty();
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        resumed.increment();
+        if (after + 1 < stream.firstRetained()) {
+            return Optional.of(Flux.just(ServerSentEvent.<String>builder().event(RESET)
+                    .data("Events after " + lastEventId + " are no longer available").build()));
+        }
+        return Optional.of(connect(stream, after));
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        streams.values().forEach(Stream::cancel);
+        streams.clear();
+    }
+
+    private Flux<ServerSentEvent<String>> connect(Stream stream, long after) {
+        Flux<ServerSentEvent<String>> events = stream.sink.asFlux()
+                .filter(event -> event.seq() > after)
+                .map(event -> ServerSentEvent.<String>builder()
+                        .id(stream.id + ":" + event.seq())
+                        .event(event.type())
+                        .data(event.data())
+                        .build());
+        events = switch (overflowPolicy) {
+            case DISCONNECT -> events
+                    .onBackpressureBuffer(bufferSize, dropped -> overflowed.increment(), BufferOverflowStrategy.ERROR)
+                    .onErrorResume(e -> {
+                        log.debug("Closing slow SSE client on stream {}", stream.id);
+                        return Flux.empty();
+                    });
+            case DROP_OLDEST -> events.onBackpressureBuffer(bufferSize, dropped -> overflowed.increment(), BufferOverflowStrategy.DROP_OLDEST);
+            case DROP_LATEST -> events.onBackpressureBuffer(bufferSize, dropped -> overflowed.increment(), BufferOverflowStrategy.DROP_LATEST);
+        };
+        // the events may end without DONE or ERROR (cut off, or the final event dropped), so the heartbeat
+        // must stop with them or the merged connection would never complete
+        Sinks.One<Boolean> eventsEnded = Sinks.one();
+        events = events.doFinally(signal -> eventsEnded.tryEmitValue(true));
+        Flux<ServerSentEvent<String>> keepAlive = Flux.interval(heartbeat)
+                .map(tick -> ServerSentEvent.<String>builder().comment("keep-alive").build())
+                .onBackpressureDrop()
+                .takeUntilOther(eventsEnded.asMono());
+        return Flux.merge(1, events, keepAlive)
+                .takeUntil(event -> DONE.equals(event.event()) || ERROR.equals(event.event()))
+                .doOnSubscribe(subscription -> stream.attached())
+                .doFinally(signal -> stream.detached());
+    }
+
+    private void sweep() {
+        Instant cutoff = Instant.now().minus(retention);
+        streams.values().removeIf(stream -> {
+            if (stream.finishedAt != null) return stream.finishedAt.isBefore(cutoff);
+            if (stream.isAbandonedSince(cutoff)) {
+                log.debug("Cancelling stream {}: no client for {}", stream.id, retention);
+                stream.cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private record Event(long seq, String type, String data) {
+    }
+
+    private static final class Stream {
+
+        private final String id;
+        private final String owner;
+        private final int replaySize;
+        private final Sinks.Many<Event> sink;
+        private final AtomicLong lastSeq = new AtomicLong();
+        private final AtomicInteger clients = new AtomicInteger();
+        private volatile Instant detachedAt = Instant.now();
+        private volatile Instant finishedAt;
+        private volatile Disposable upstream;
+
+        private Stream(String id, String owner, int replaySize) {
+            this.id = id;
+            this.owner = owner;
+            this.replaySize = replaySize;
+            this.sink = Sinks.many().replay().limit(replaySize);
+        }
+
+        void next(String token) {
+            emit(TOKEN, token);
+        }
+
+        void fail(Throwable error) {
+            emit(ERROR, error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage());
+            finish();
+        }
+
+        void complete() {
+            emit(DONE, "");
+            finish();
+        }
+
+        void cancel() {
+            Disposable subscription = upstream;
+            if (subscription != null) subscription.dispose();
+            finish();
+        }
+
+        long firstRetained() {
+            return Math.max(1, lastSeq.get() - replaySize + 1);
+        }
+
+        void attached() {
+            clients.incrementAndGet();
+        }
+
+        void detached() {
+            if (clients.decrementAndGet() == 0) detachedAt = Instant.now();
+        }
+
+        boolean isAbandonedSince(Instant cutoff) {
+            return clients.get() == 0 && detachedAt.isBefore(cutoff);
+        }
+
+        private void emit(String type, String data) {
+            sink.emitNext(new Event(lastSeq.incrementAndGet(), type, data), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        }
+
+        private void finish() {
+            if (finishedAt != null) return;
+            finishedAt = Instant.now();
+            sink.tryEmitComplete();
+        }
+    }
+}
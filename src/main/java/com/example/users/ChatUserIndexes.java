@@ -0,0 +1,43 @@
+package com.example.users;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.ai.entity.ChatUser;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indexes behind the admin listing filters: role and creation date, each followed by id so a filtered
+ * keyset page is read in index order. {@link ChatUser} is mapped outside this module, so its table and
+ * column names come from Hibernate's metamodel and the indexes are created once the schema exists.
+ */
+@Slf4j
+@Component
+public class ChatUserIndexes implements SmartInitializingSingleton {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChatUserIndexes(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(ChatUser.class);
+        String table = persister.getTableName();
+        String id = persister.getIdentifierColumnNames()[0];
+        create("idx_chat_users_role_id", table, persister.getPropertyColumnNames("role")[0], id);
+        create("idx_chat_users_created_at_id", table, persister.getPropertyColumnNames("createdAt")[0], id);
+    }
+
+    private void create(String name, String table, String... columns) {
+        jdbcTemplate.execute("create index if not exists " + name + " on " + table + " (" + String.join(", ", columns) + ")");
+        log.debug("Ensured index {} on {}", name, table);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.users;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.ai.entity.ChatUser;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.springframework.ai.utility.Constants.*;
+
+/**
+ * Admin user listing over {@link UserSummary} projections. Pages are keyset pages ordered by id: a page
+ * starts after the last id of the previous one, so deep pages cost the same as the first. The export
+ * streams the same rows from a database cursor as JSON lines and keeps nothing but the current row.
+ * <p>
+ * The where clause only names the filters that are set, so each combination gets a plain query the
+ * database can serve from the role or creation-date index, and no null parameter is ever bound.
+ */
+@Service
+public class UserDirectory {
+
+    private static final String SUMMARY = "select u.id as id, u.username as username, u.email as email, u.role as role,"
+            + " u.createdAt as createdAt from ChatUser u";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public List<UserSummary> page(Filter filter, long afterId, int size) {
+        return query(filter, afterId).setMaxResults(size).getResultList().stream().map(Row::of).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public long export(Filter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        try (Stream<UserSummary> users = query(filter, null).setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .getResultStream().map(Row::of)) {
+            for (Iterator<UserSummary> it = users.iterator(); it.hasNext(); count++) {
+                writer.write(objectMapper.writeValueAsString(toMap(it.next())));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private TypedQuery<Tuple> query(Filter filter, Long afterId) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (filter.role() != null) {
+            conditions.add("u.role = :role");
+            parameters.put("role", filter.role());
+        }
+        if (filter.createdFrom() != null) {
+            conditions.add("u.createdAt >= :createdFrom");
+            parameters.put("createdFrom", filter.createdFrom());
+        }
+        if (filter.createdTo() != null) {
+            conditions.add("u.createdAt < :createdTo");
+            parameters.put("createdTo", filter.createdTo());
+        }
+        if (afterId != null) {
+            conditions.add("u.id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+        String where = conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+        TypedQuery<Tuple> query = entityManager.createQuery(SUMMARY + where + " order by u.id", Tuple.class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    public static Map<String, Object> toMap(UserSummary u) {
+        return Map.of(ID, u.getId(), USERNAME, u.getUsername(), EMAIL, u.getEmail(), ROLE, u.getRole().name(), CREATED_AT, u.getCreatedAt().toString());
+    }
+
+    /**
+     * Listing filters; a null field does not filter. {@code createdTo} is exclusive.
+     */
+    public record Filter(ChatUser.Role role, LocalDateTime createdFrom, LocalDateTime createdTo) {
+    }
+
+    private record Row(Long id, String username, String email, ChatUser.Role role, LocalDateTime createdAt) implements UserSummary {
+
+        static Row of(Tuple tuple) {
+            return new Row(tuple.get("id", Long.class), tuple.get("username", String.class), tuple.get("email", String.class),
+                    tuple.get("role", ChatUser.Role.class), tuple.get("createdAt", LocalDateTime.class));
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+
+        @Override
+        public ChatUser.Role getRole() {
+            return role;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.users;
+
+import org.springframework.ai.entity.ChatUser;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns the admin user listing shows, selected directly so no {@link ChatUser} is loaded into the
+ * persistence context.
+ */
+public interface UserSummary {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+
+    ChatUser.Role getRole();
+
+    LocalDateTime getCreatedAt();
+}
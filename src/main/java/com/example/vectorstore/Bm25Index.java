@@ -0,0 +1,275 @@
+package com.example.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory BM25 inverted index. Each term's postings are (ordinal delta, term frequency) pairs as
+ * unsigned varints in one growable byte array; ordinals only increase, so documents are appended without
+ * re-encoding. Only each document's id and metadata (for filters) are kept besides the postings, not its
+ * text. Deletes and upserts tombstone the old ordinal and take its length out of the statistics; document
+ * frequencies count live postings at query time. Postings are rewritten without the tombstoned ordinals
+ * once those outnumber live documents.
+ * <p>
+ * Tokens are lower-cased runs of letters and digits that may contain {@code - _ . /}, so identifiers such
+ * as {@code ERR-4711} or {@code PN_55.A} are indexed whole and additionally as their parts.
+ */
+public class Bm25Index {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+(?:[-_./][\\p{L}\\p{N}]+)*");
+    private static final Pattern PART_SEPARATOR = Pattern.compile("[-_./]");
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+            "from", "how", "in", "is", "it", "of", "on", "or", "that", "the", "this", "to", "was", "what", "when",
+            "where", "which", "who", "why", "with");
+
+    private final float k1;
+    private final float b;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private List<String> ids = new ArrayList<>();
+    private List<Map<String, Object>> metadata = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private int[] lengths = new int[1024];
+    private long totalLength;
+
+    public Bm25Index(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    public void add(List<Document> batch) {
+        lock.writeLock().lock();
+        try {
+            for (Document document : batch) {
+                Integer previous = ordinalsById.get(document.getId());
+                if (previous != null) remove(previous);
+                index(document);
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Integer ordinal = ordinalsById.get(id);
+                if (ordinal != null) remove(ordinal);
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Predicate<Map<String, Object>> predicate) {
+        lock.writeLock().lock();
+        try {
+            for (int ordinal : ordinalsById.values().stream().mapToInt(Integer::intValue).toArray()) {
+                if (predicate.test(metadata.get(ordinal))) remove(ordinal);
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top {@code topK} live documents whose metadata {@code filter} accepts, best BM25 score first.
+     */
+    public List<Hit> search(String query, int topK, Predicate<Map<String, Object>> filter) {
+        Set<String> terms = new LinkedHashSet<>(tokens(query));
+        lock.readLock().lock();
+        try {
+            int live = ordinalsById.size();
+            if (terms.isEmpty() || live == 0 || topK <= 0) return List.of();
+            float averageLength = (float) totalLength / live;
+            Map<Integer, Float> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) continue;
+                int[] docFreq = new int[1];
+                list.forEach((ordinal, tf) -> {
+                    if (!deleted.get(ordinal)) docFreq[0]++;
+                });
+                if (docFreq[0] == 0) continue;
+                float idf = (float) Math.log(1 + (live - docFreq[0] + 0.5) / (docFreq[0] + 0.5));
+                list.forEach((ordinal, tf) -> {
+                    if (deleted.get(ordinal)) return;
+                    float norm = k1 * (1 - b + b * lengths[ordinal] / averageLength);
+                    scores.merge(ordinal, idf * tf * (k1 + 1) / (tf + norm), Float::sum);
+                });
+            }
+            PriorityQueue<Hit> best = new PriorityQueue<>(topK + 1, (x, y) -> Float.compare(x.score(), y.score()));
+            for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+                if (best.size() == topK && entry.getValue() <= best.peek().score()) continue;
+                int ordinal = entry.getKey();
+                if (!filter.test(metadata.get(ordinal))) continue;
+                best.add(new Hit(ids.get(ordinal), entry.getValue()));
+                if (best.size() > topK) best.poll();
+            }
+            Hit[] ranked = best.toArray(Hit[]::new);
+            Arrays.sort(ranked, (x, y) -> Float.compare(y.score(), x.score()));
+            return List.of(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Encoded postings size in bytes, for comparison with the raw text it indexes.
+     */
+    public long postingsBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings list : postings.values()) bytes += list.size;
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        var matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String token = matcher.group();
+            if (!STOP_WORDS.contains(token)) tokens.add(token);
+            if (token.length() > 1 && PART_SEPARATOR.matcher(token).find()) {
+                for (String part : PART_SEPARATOR.split(token)) {
+                    if (!STOP_WORDS.contains(part)) tokens.add(part);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private void index(Document document) {
+        int ordinal = ids.size();
+        ids.add(document.getId());
+        metadata.add(Map.copyOf(document.getMetadata()));
+        ordinalsById.put(document.getId(), ordinal);
+        List<String> tokens = tokens(document.getText());
+        if (ordinal >= lengths.length) lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        lengths[ordinal] = tokens.size();
+        totalLength += tokens.size();
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) frequencies.merge(token, 1, Integer::sum);
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, key -> new Postings()).append(ordinal, tf));
+    }
+
+    private void remove(int ordinal) {
+        ordinalsById.remove(ids.get(ordinal));
+        deleted.set(ordinal);
+        totalLength -= lengths[ordinal];
+    }
+
+    private void compactIfSparse() {
+        if (deleted.cardinality() <= Math.max(1024, ordinalsById.size())) return;
+        // the text is gone, so renumber the live ordinals and re-encode the postings instead of re-tokenizing
+        int[] renumbered = new int[ids.size()];
+        List<String> liveIds = new ArrayList<>(ordinalsById.size());
+        List<Map<String, Object>> liveMetadata = new ArrayList<>(ordinalsById.size());
+        int[] liveLengths = new int[Math.max(1024, ordinalsById.size())];
+        for (int ordinal = 0; ordinal < ids.size(); ordinal++) {
+            if (deleted.get(ordinal)) continue;
+            renumbered[ordinal] = liveIds.size();
+            liveLengths[liveIds.size()] = lengths[ordinal];
+            liveIds.add(ids.get(ordinal));
+            liveMetadata.add(metadata.get(ordinal));
+        }
+        postings.replaceAll((term, list) -> {
+            Postings live = new Postings();
+            list.forEach((ordinal, tf) -> {
+                if (!deleted.get(ordinal)) live.append(renumbered[ordinal], tf);
+            });
+            return live;
+        });
+        postings.values().removeIf(list -> list.size == 0);
+        ids = liveIds;
+        metadata = liveMetadata;
+        lengths = liveLengths;
+        ordinalsById.clear();
+        for (int ordinal = 0; ordinal < ids.size(); ordinal++) ordinalsById.put(ids.get(ordinal), ordinal);
+        deleted.clear();
+    }
+
+    public record Hit(String id, float score) {
+    }
+
+    @FunctionalInterface
+    private interface PostingVisitor {
+        void visit(int ordinal, int tf);
+    }
+
+    private static final class Postings {
+
+        private byte[] data = new byte[8];
+        private int size;
+        private int lastOrdinal;
+
+        void append(int ordinal, int tf) {
+            writeVarint(ordinal - lastOrdinal);
+            writeVarint(tf);
+            lastOrdinal = ordinal;
+        }
+
+        void forEach(PostingVisitor visitor) {
+            int position = 0;
+            int ordinal = 0;
+            while (position < size) {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte next = data[position++];
+                    delta |= (next & 0x7f) << shift;
+                    if (next >= 0) break;
+                }
+                int tf = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte next = data[position++];
+                    tf |= (next & 0x7f) << shift;
+                    if (next >= 0) break;
+                }
+                ordinal += delta;
+                visitor.visit(ordinal, tf);
+            }
+        }
+
+        private void writeVarint(int value) {
+            if (size + 5 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            while ((value & ~0x7f) != 0) {
+                data[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A store that can hand back documents it holds by id, scored exactly against a query, so a decorator that
+ * only knows ids (such as the keyword index behind {@link HybridVectorStore}) can turn them into results.
+ */
+public interface DocumentLookup {
+
+    /**
+     * The stored documents among {@code ids}, each with its similarity to {@code query} as score; ids the
+     * store does not hold are skipped. Order is unspecified.
+     */
+    List<Document> findByIds(String query, Collection<String> ids);
+}
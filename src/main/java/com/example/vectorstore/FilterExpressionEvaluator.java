@@ -0,0 +1,78 @@
+package com.example.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+public final class FilterExpressionEvaluator {
+
+    private FilterExpressionEvaluator() {
+    }
+
+    public static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+        if (expression == null) return true;
+        return switch (expression.type()) {
+            case AND -> evaluate(expression.left(), metadata) && evaluate(expression.right(), metadata);
+            case OR -> evaluate(expression.left(), metadata) || evaluate(expression.right(), metadata);
+            case NOT -> !evaluate(expression.left(), metadata);
+            case EQ -> Objects.equals(normalize(value(expression.left(), metadata)), normalize(value(expression.right(), metadata)));
+            case NE -> !Objects.equals(normalize(value(expression.left(), metadata)), normalize(value(expression.right(), metadata)));
+            case GT -> compare(expression, metadata, order -> order > 0);
+            case GTE -> compare(expression, metadata, order -> order >= 0);
+            case LT -> compare(expression, metadata, order -> order < 0);
+            case LTE -> compare(expression, metadata, order -> order <= 0);
+            case IN -> contains(expression, metadata);
+            case NIN -> !contains(expression, metadata);
+            default -> throw new IllegalArgumentException("Unsupported filter expression type: " + expression.type());
+        };
+    }
+
+    private static boolean evaluate(Filter.Operand operand, Map<String, Object> metadata) {
+        if (operand instanceof Filter.Expression expression) return matches(expression, metadata);
+        if (operand instanceof Filter.Group group) return matches(group.content(), metadata);
+        throw new IllegalArgumentException("Expected a boolean filter operand but got: " + operand);
+    }
+
+    private static Object value(Filter.Operand operand, Map<String, Object> metadata) {
+        if (operand instanceof Filter.Key key) return metadata.get(unquote(key.key()));
+        if (operand instanceof Filter.Value value) return value.value();
+        throw new IllegalArgumentException("Expected a key or value filter operand but got: " + operand);
+    }
+
+    /**
+     * A missing value is not ordered against anything, so range comparisons on it are false, as in
+     * {@link MetadataBitmapIndex}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean compare(Filter.Expression expression, Map<String, Object> metadata, IntPredicate accept) {
+        Object left = normalize(value(expression.left(), metadata));
+        Object right = normalize(value(expression.right(), metadata));
+        if (left == null || right == null) return false;
+        if (left instanceof Comparable comparable && left.getClass() == right.getClass()) return accept.test(comparable.compareTo(right));
+        return accept.test(left.toString().compareTo(right.toString()));
+    }
+
+    private static boolean contains(Filter.Expression expression, Map<String, Object> metadata) {
+        Object left = normalize(value(expression.left(), metadata));
+        Object right = value(expression.right(), metadata);
+        if (!(right instanceof Collection<?> values)) return Objects.equals(left, normalize(right));
+        for (Object candidate : values) {
+            if (Objects.equals(left, normalize(candidate))) return true;
+        }
+        return false;
+    }
+
+    static Object normalize(Object value) {
+        return value instanceof Number number && !(value instanceof Double) ? number.doubleValue() : value;
+    }
+
+    static String unquote(String key) {
+        if (key.length() > 1 && (key.startsWith("\"") && key.endsWith("\"") || key.startsWith("'") && key.endsWith("'"))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+}
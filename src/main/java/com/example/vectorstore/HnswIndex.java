@@ -0,0 +1,259 @@
+package com.example.vectorstore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over unit-normalized vectors, scored by dot product
+ * (cosine similarity). Not thread-safe: callers serialize writes and may run searches concurrently
+ * only while no write is in progress.
+ */
+final class HnswIndex {
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingDouble(Candidate::score).reversed();
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingDouble(Candidate::score);
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final List<float[]> vectors = new ArrayList<>();
+    private final List<int[][]> links = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int dimensions = -1;
+
+    HnswIndex(int m, int efConstruction, long seed) {
+        if (m < 2) throw new IllegalArgumentException("HNSW M must be at least 2");
+        if (efConstruction < 1) throw new IllegalArgumentException("HNSW efConstruction must be positive");
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    int size() {
+        return vectors.size();
+    }
+
+    int liveSize() {
+        return vectors.size() - deleted.cardinality();
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    float[] vector(int node) {
+        return vectors.get(node);
+    }
+
+    boolean isDeleted(int node) {
+        return deleted.get(node);
+    }
+
+    void markDeleted(int node) {
+        deleted.set(node);
+    }
+
+    int add(float[] embedding) {
+        if (dimensions < 0) dimensions = embedding.length;
+        else if (embedding.length != dimensions) {
+            throw new IllegalArgumentException("Expected embedding of dimension " + dimensions + " but got " + embedding.length);
+        }
+        float[] vector = normalize(embedding);
+        int node = vectors.size();
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) nodeLinks[l] = new int[capacity(l) + 1];
+        vectors.add(vector);
+        links.add(nodeLinks);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) current = greedyClosest(vector, current, l);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, l);
+            for (Candidate neighbor : selectNeighbors(candidates, m)) {
+                append(nodeLinks[l], neighbor.node());
+                connect(neighbor.node(), node, l);
+            }
+            current = candidates.getFirst().node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    List<Candidate> search(float[] embedding, int k, int ef, IntPredicate accept) {
+        if (entryPoint < 0 || k <= 0) return List.of();
+        float[] query = normalize(embedding);
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) current = greedyClosest(query, current, l);
+
+        int width = Math.max(ef, k);
+        while (true) {
+            List<Candidate> candidates = searchLayer(query, current, width, 0);
+            List<Candidate> results = new ArrayList<>(k);
+            for (Candidate candidate : candidates) {
+                if (!deleted.get(candidate.node()) && accept.test(candidate.node())) {
+                    results.add(candidate);
+                    if (results.size() == k) return results;
+                }
+            }
+            if (width >= vectors.size()) return results;
+            width = Math.min(vectors.size(), width * 2);
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = dot(query, vectors.get(current));
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links.get(current)[level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float score = dot(query, vectors.get(neighbors[i]));
+                if (score > best) {
+                    best = score;
+                    current = neighbors[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level) {
+        VisitedSet seen = visited.get();
+        seen.reset(vectors.size());
+        seen.add(entry);
+        Candidate first = new Candidate(entry, dot(query, vectors.get(entry)));
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(WORST_FIRST);
+        frontier.add(first);
+        results.add(first);
+
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.score() < results.peek().score()) break;
+            int[][] nodeLinks = links.get(closest.node());
+            if (level >= nodeLinks.length) continue;
+            int[] neighbors = nodeLinks[level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (!seen.add(neighbor)) continue;
+                float score = dot(query, vectors.get(neighbor));
+                if (results.size() < ef || score > results.peek().score()) {
+                    Candidate candidate = new Candidate(neighbor, score);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(BEST_FIRST);
+        return sorted;
+    }
+
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int limit) {
+        List<Candidate> selected = new ArrayList<>(limit);
+        List<Candidate> discarded = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= limit) break;
+            boolean diverse = true;
+            float[] vector = vectors.get(candidate.node());
+            for (Candidate chosen : selected) {
+                if (dot(vector, vectors.get(chosen.node())) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) selected.add(candidate);
+            else discarded.add(candidate);
+        }
+        for (int i = 0; i < discarded.size() && selected.size() < limit; i++) selected.add(discarded.get(i));
+        return selected;
+    }
+
+    private void connect(int node, int neighbor, int level) {
+        int[] neighbors = links.get(node)[level];
+        if (neighbors[0] < neighbors.length - 1) {
+            append(neighbors, neighbor);
+            return;
+        }
+        float[] vector = vectors.get(node);
+        List<Candidate> candidates = new ArrayList<>(neighbors[0] + 1);
+        for (int i = 1; i <= neighbors[0]; i++) candidates.add(new Candidate(neighbors[i], dot(vector, vectors.get(neighbors[i]))));
+        candidates.add(new Candidate(neighbor, dot(vector, vectors.get(neighbor))));
+        candidates.sort(BEST_FIRST);
+        List<Candidate> kept = selectNeighbors(candidates, neighbors.length - 1);
+        neighbors[0] = 0;
+        for (Candidate candidate : kept) append(neighbors, candidate.node());
+    }
+
+    private int capacity(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    private static void append(int[] neighbors, int node) {
+        neighbors[++neighbors[0]] = node;
+    }
+
+    static float[] normalize(float[] embedding) {
+        double norm = 0;
+        for (float value : embedding) norm += value * value;
+        float[] vector = Arrays.copyOf(embedding, embedding.length);
+        if (norm == 0) return vector;
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) vector[i] *= scale;
+        return vector;
+    }
+
+    static float dot(float[] a, float[] b) {
+        return SimilarityKernels.get().dot(a, b);
+    }
+
+    record Candidate(int node, float score) {
+    }
+
+    private static final class VisitedSet {
+
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int size) {
+            if (marks.length < size) marks = new int[Math.max(size, marks.length * 2)];
+            if (++epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == epoch) return false;
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.vectorstore;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process {@link VectorStore} backed by an HNSW graph. Searches take a shared lock and run in
+ * parallel; writes take an exclusive lock. Deleted documents are tombstoned until {@link #rebuild()}.
+ * Filters on indexed metadata keys are resolved to candidate bitmaps first; when few enough nodes pass,
+ * they are scored exactly instead of walking a graph in which most neighbours would be rejected.
+ */
+public class HnswVectorStore implements VectorStore, DocumentLookup {
+
+    private final EmbeddingModel embeddingModel;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int exactScanLimit;
+    private final MetadataBitmapIndex metadataIndex;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> nodesById = new HashMap<>();
+    private HnswIndex index;
+
+    private HnswVectorStore(Builder builder) {
+        this.embeddingModel = builder.embeddingModel;
+        this.m = builder.m;
+        this.efConstruction = builder.efConstruction;
+        this.efSearch = builder.efSearch;
+        this.exactScanLimit = builder.exactScanLimit;
+        this.metadataIndex = new MetadataBitmapIndex(builder.metadataKeys);
+        this.index = new HnswIndex(m, efConstruction, builder.seed);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) return;
+        List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                Integer previous = nodesById.remove(document.getId());
+                if (previous != null) markDeleted(previous);
+                int node = index.add(embeddings.get(i));
+                this.documents.add(document);
+                nodesById.put(document.getId(), node);
+                metadataIndex.add(node, document.getMetadata());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer node = nodesById.remove(id);
+                if (node != null) markDeleted(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        lock.writeLock().lock();
+        try {
+            nodesById.values().removeIf(node -> {
+                boolean matches = FilterExpressionEvaluator.matches(filterExpression, documents.get(node).getMetadata());
+                if (matches) markDeleted(node);
+                return matches;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = embeddingModel.embed(request.getQuery());
+        Filter.Expression filter = request.getFilterExpression();
+        lock.readLock().lock();
+        try {
+            RoaringBitmap allowed = metadataIndex.candidates(filter);
+            List<HnswIndex.Candidate> candidates;
+            if (allowed != null && allowed.getLongCardinality() <= Math.max(exactScanLimit, request.getTopK())) {
+                candidates = exactSearch(HnswIndex.normalize(query), request.getTopK(), allowed, filter);
+            } else if (allowed != null) {
+                candidates = index.search(query, request.getTopK(), efSearch, node -> allowed.contains(node)
+                        && FilterExpressionEvaluator.matches(filter, documents.get(node).getMetadata()));
+            } else {
+                candidates = index.search(query, request.getTopK(), efSearch,
+                        node -> FilterExpressionEvaluator.matches(filter, documents.get(node).getMetadata()));
+            }
+            List<Document> results = new ArrayList<>(candidates.size());
+            for (HnswIndex.Candidate candidate : candidates) {
+                if (candidate.score() < request.getSimilarityThreshold()) break;
+                Document document = documents.get(candidate.node());
+                results.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .score((double) candidate.score())
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> findByIds(String query, Collection<String> ids) {
+        float[] normalized = HnswIndex.normalize(embeddingModel.embed(query));
+        lock.readLock().lock();
+        try {
+            List<Document> found = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Integer node = nodesById.get(id);
+                if (node == null) continue;
+                Document document = documents.get(node);
+                found.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .score((double) HnswIndex.dot(normalized, index.vector(node)))
+                        .build());
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<HnswIndex.Candidate> exactSearch(float[] query, int topK, RoaringBitmap allowed, Filter.Expression filter) {
+        PriorityQueue<HnswIndex.Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(HnswIndex.Candidate::score));
+        allowed.forEach((int node) -> {
+            if (index.isDeleted(node) || !FilterExpressionEvaluator.matches(filter, documents.get(node).getMetadata())) return;
+            best.add(new HnswIndex.Candidate(node, HnswIndex.dot(query, index.vector(node))));
+            if (best.size() > topK) best.poll();
+        });
+        List<HnswIndex.Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(HnswIndex.Candidate::score).reversed());
+        return ranked;
+    }
+
+    private void markDeleted(int node) {
+        index.markDeleted(node);
+        metadataIndex.remove(node);
+    }
+
+    /**
+     * Rebuilds the graph from the live documents, dropping tombstones left behind by deletes and upserts.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            HnswIndex rebuilt = new HnswIndex(m, efConstruction, System.nanoTime());
+            List<Document> live = new ArrayList<>(nodesById.size());
+            Map<String, Integer> rebuiltNodes = new HashMap<>();
+            metadataIndex.clear();
+            for (int node = 0; node < index.size(); node++) {
+                if (index.isDeleted(node)) continue;
+                Document document = documents.get(node);
+                int rebuiltNode = rebuilt.add(index.vector(node));
+                rebuiltNodes.put(document.getId(), rebuiltNode);
+                metadataIndex.add(rebuiltNode, document.getMetadata());
+                live.add(document);
+            }
+            documents.clear();
+            documents.addAll(live);
+            nodesById.clear();
+            nodesById.putAll(rebuiltNodes);
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.liveSize();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel embeddingModel;
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+        private long seed = 42;
+        private int exactScanLimit = 2048;
+        private Set<String> metadataKeys = Set.of();
+
+        private Builder(EmbeddingModel embeddingModel) {
+            this.embeddingModel = embeddingModel;
+        }
+
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Metadata keys kept in bitmap indexes so that filters on them are resolved before the search.
+         */
+        public Builder metadataKeys(Set<String> metadataKeys) {
+            this.metadataKeys = metadataKeys;
+            return this;
+        }
+
+        /**
+         * Filtered searches whose indexed candidates number at most this many are scored exactly.
+         */
+        public Builder exactScanLimit(int exactScanLimit) {
+            this.exactScanLimit = exactScanLimit;
+            return this;
+        }
+
+        public HnswVectorStore build() {
+            return new HnswVectorStore(this);
+        }
+    }
+}
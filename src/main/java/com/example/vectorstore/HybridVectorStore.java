@@ -0,0 +1,195 @@
+package com.example.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link VectorStore} decorator that keeps a {@link Bm25Index} in step with the delegate and answers
+ * searches by reciprocal rank fusion of both rankings. The lexical search runs on a virtual thread while
+ * the vector search (and its query embedding) runs on the caller's thread; each side fetches
+ * {@code topK * candidateFactor} candidates and a document scores {@code sum(1 / (rrfK + rank))} over the
+ * rankings it appears in. A keyword match the vector search missed (an identifier the embedding does not
+ * capture) is fetched from the delegate, which must be a {@link DocumentLookup} since the keyword index
+ * keeps no text, and scored exactly against its stored vector, so the request's similarity threshold holds
+ * for it too. With a delegate that cannot look documents up, keyword matches only re-rank the vector
+ * candidates. Results are ordered by the fused score but keep their cosine similarity as score; both are
+ * also in the metadata under {@link #DENSE_SCORE} and {@link #FUSED_SCORE}.
+ */
+public class HybridVectorStore implements VectorStore, AutoCloseable {
+
+    public static final String DENSE_SCORE = "dense_score";
+    public static final String FUSED_SCORE = "rrf_score";
+
+    private final VectorStore delegate;
+    private final Bm25Index lexicalIndex;
+    private final int rrfK;
+    private final int candidateFactor;
+    private final ExecutorService lexicalExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private HybridVectorStore(Builder builder) {
+        this.delegate = builder.delegate;
+        this.lexicalIndex = new Bm25Index(builder.k1, builder.b);
+        this.rrfK = builder.rrfK;
+        this.candidateFactor = builder.candidateFactor;
+    }
+
+    public static Builder builder(VectorStore delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) return;
+        delegate.add(documents);
+        lexicalIndex.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+        lexicalIndex.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+        lexicalIndex.delete(metadata -> FilterExpressionEvaluator.matches(filterExpression, metadata));
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        int topK = request.getTopK();
+        if (topK <= 0) return List.of();
+        int candidates = topK * candidateFactor;
+        Filter.Expression filter = request.getFilterExpression();
+        CompletableFuture<List<Bm25Index.Hit>> lexical = CompletableFuture.supplyAsync(() -> lexicalIndex.search(request.getQuery(),
+                candidates, metadata -> FilterExpressionEvaluator.matches(filter, metadata)), lexicalExecutor);
+        List<Document> semantic = delegate.similaritySearch(SearchRequest.builder()
+                .query(request.getQuery())
+                .topK(candidates)
+                .similarityThreshold(request.getSimilarityThreshold())
+                .filterExpression(filter)
+                .build());
+        List<Bm25Index.Hit> lexicalHits;
+        try {
+            lexicalHits = lexical.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+
+        Map<String, Fused> fused = new LinkedHashMap<>();
+        for (int rank = 0; rank < semantic.size(); rank++) {
+            Document document = semantic.get(rank);
+            fused.computeIfAbsent(document.getId(), id -> new Fused(document)).score += 1.0 / (rrfK + rank + 1);
+        }
+        Map<String, Double> lexicalOnly = new LinkedHashMap<>();
+        for (int rank = 0; rank < lexicalHits.size(); rank++) {
+            Fused entry = fused.get(lexicalHits.get(rank).id());
+            if (entry != null) entry.score += 1.0 / (rrfK + rank + 1);
+            else lexicalOnly.put(lexicalHits.get(rank).id(), 1.0 / (rrfK + rank + 1));
+        }
+        if (!lexicalOnly.isEmpty() && delegate instanceof DocumentLookup lookup) {
+            double threshold = request.getSimilarityThreshold();
+            for (Document document : lookup.findByIds(request.getQuery(), lexicalOnly.keySet())) {
+                if (threshold > 0 && (document.getScore() == null || document.getScore() < threshold)) continue;
+                Fused entry = new Fused(document);
+                entry.score = lexicalOnly.get(document.getId());
+                fused.put(document.getId(), entry);
+            }
+        }
+        List<Fused> ranked = new ArrayList<>(fused.values());
+        ranked.sort(Comparator.comparingDouble((Fused entry) -> entry.score).reversed());
+        List<Document> results = new ArrayList<>(Math.min(topK, ranked.size()));
+        for (Fused entry : ranked.subList(0, Math.min(topK, ranked.size()))) {
+            Map<String, Object> metadata = new HashMap<>(entry.document.getMetadata());
+            if (entry.document.getScore() != null) metadata.put(DENSE_SCORE, entry.document.getScore());
+            metadata.put(FUSED_SCORE, entry.score);
+            results.add(Document.builder()
+                    .id(entry.document.getId())
+                    .text(entry.document.getText())
+                    .metadata(metadata)
+                    .score(entry.document.getScore())
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * Indexes documents the delegate already holds, e.g. a persistent store reopened after a restart.
+     */
+    public void reindex(List<Document> documents) {
+        lexicalIndex.add(documents);
+    }
+
+    public Bm25Index lexicalIndex() {
+        return lexicalIndex;
+    }
+
+    @Override
+    public void close() throws Exception {
+        lexicalExecutor.close();
+        if (delegate instanceof AutoCloseable closeable) closeable.close();
+    }
+
+    private static final class Fused {
+
+        private final Document document;
+        private double score;
+
+        private Fused(Document document) {
+            this.document = document;
+        }
+    }
+
+    public static final class Builder {
+
+        private final VectorStore delegate;
+        private float k1 = 1.2f;
+        private float b = 0.75f;
+        private int rrfK = 60;
+        private int candidateFactor = 4;
+
+        private Builder(VectorStore delegate) {
+            this.delegate = delegate;
+        }
+
+        public Builder k1(float k1) {
+            this.k1 = k1;
+            return this;
+        }
+
+        public Builder b(float b) {
+            this.b = b;
+            return this;
+        }
+
+        public Builder rrfK(int rrfK) {
+            this.rrfK = rrfK;
+            return this;
+        }
+
+        public Builder candidateFactor(int candidateFactor) {
+            if (candidateFactor < 1) throw new IllegalArgumentException("candidateFactor must be positive");
+            this.candidateFactor = candidateFactor;
+            return this;
+        }
+
+        public HybridVectorStore build() {
+            return new HybridVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,786 @@
+package com.example.vectorstore;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Persistent {@link VectorStore} that keeps unit-normalized embeddings contiguously in a memory-mapped
+ * file ({@code vectors.bin}) and document text/metadata in an append-only JSON lines side file
+ * ({@code documents.jsonl}). Startup maps the vector file and indexes side-file line offsets; documents
+ * are only read back for search hits, so heap usage does not grow with the stored embeddings.
+ * <p>
+ * With {@link Quantization#INT8} or {@link Quantization#PQ} the first search pass scans compact on-heap
+ * codes and only the best {@code topK * rerankFactor} candidates are re-scored against the mapped
+ * full-precision vectors. Codes (and PQ codebooks) are saved to {@code quantizer.bin} after training and on
+ * close, so reopening only encodes the vectors added since. PQ is trained on a background thread once
+ * {@code pqTrainingSize} vectors exist; until then searches scan full precision.
+ * <p>
+ * Filters on the configured metadata keys are resolved against bitmap indexes (built from the side file
+ * at startup), so a filtered search only scores the ordinals that can match.
+ */
+@Slf4j
+public class MappedVectorStore implements VectorStore, DocumentLookup, AutoCloseable {
+
+    public static final String VECTORS_FILE = "vectors.bin";
+    public static final String DOCUMENTS_FILE = "documents.jsonl";
+    public static final String QUANTIZER_FILE = "quantizer.bin";
+
+    private static final int MAGIC = 0x53414956;
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 64;
+    private static final long DIMENSIONS_OFFSET = 8;
+    private static final long PRECISION_OFFSET = 12;
+    private static final long COUNT_OFFSET = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int QUANTIZER_MAGIC = 0x53415651;
+    private static final int ENCODE_CHUNK = 4096;
+    private static final String ADD = "add";
+    private static final String DELETE = "delete";
+
+    private final EmbeddingModel embeddingModel;
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimilarityKernel kernel = SimilarityKernels.get();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final FileChannel documentChannel;
+    private FileChannel vectorChannel;
+    private Arena arena;
+    private MemorySegment vectors;
+    private Precision precision;
+    private int dimensions;
+    private int count;
+    private long capacity;
+    private long documentsEnd;
+    private final Quantization quantization;
+    private final int pqSubspaces;
+    private final int pqTrainingSize;
+    private final int rerankFactor;
+    private VectorQuantizer quantizer;
+    private final AtomicBoolean training = new AtomicBoolean();
+    private boolean closed;
+    private final MetadataBitmapIndex metadataIndex;
+    private long[] documentOffsets = new long[INITIAL_CAPACITY];
+    private int[] documentLengths = new int[INITIAL_CAPACITY];
+
+    private MappedVectorStore(Builder builder) {
+        this.embeddingModel = builder.embeddingModel;
+        this.directory = builder.directory;
+        this.precision = builder.precision;
+        this.quantization = builder.quantization;
+        this.pqSubspaces = builder.pqSubspaces;
+        this.pqTrainingSize = builder.pqTrainingSize;
+        this.rerankFactor = builder.rerankFactor;
+        this.metadataIndex = new MetadataBitmapIndex(builder.metadataKeys);
+        try {
+            Files.createDirectories(directory);
+            Path vectorFile = directory.resolve(VECTORS_FILE);
+            if (Files.exists(vectorFile)) mapExisting(vectorFile);
+            this.documentChannel = FileChannel.open(directory.resolve(DOCUMENTS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            indexDocuments();
+            if (metadataIndex.isEnabled()) {
+                for (int ordinal : ordinalsById.values()) metadataIndex.add(ordinal, readDocument(ordinal).getMetadata());
+            }
+            if (vectors != null) initQuantizer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open mapped vector store at " + directory, e);
+        }
+        log.info("Mapped vector store opened at {} with {} documents ({} dims, {})", directory, ordinalsById.size(), dimensions, precision);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel, Path directory) {
+        return new Builder(embeddingModel, directory);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) return;
+        List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+        lock.writeLock().lock();
+        try {
+            if (vectors == null) {
+                createVectorFile(embeddings.getFirst().length);
+                initQuantizer();
+            }
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                float[] embedding = embeddings.get(i);
+                if (embedding.length != dimensions) {
+                    throw new IllegalArgumentException("Expected embedding of dimension " + dimensions + " but got " + embedding.length);
+                }
+                if (count == capacity) remap(capacity * 2);
+                float[] vector = HnswIndex.normalize(embedding);
+                writeVector(count, vector);
+                if (quantizer != null) quantizer.encode(count, vector);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("id", document.getId());
+                entry.put("op", ADD);
+                entry.put("metadata", document.getMetadata());
+                entry.put("text", document.getText());
+                appendDocumentLine(count, entry);
+                Integer previous = ordinalsById.put(document.getId(), count);
+                if (previous != null) {
+                    deleted.set(previous);
+                    metadataIndex.remove(previous);
+                }
+                metadataIndex.add(count, document.getMetadata());
+                count++;
+            }
+            commit();
+            if (quantization == Quantization.PQ && quantizer == null && ordinalsById.size() >= pqTrainingSize) trainInBackground();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to mapped vector store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer ordinal = ordinalsById.remove(id);
+                if (ordinal == null) continue;
+                deleted.set(ordinal);
+                metadataIndex.remove(ordinal);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("id", id);
+                entry.put("op", DELETE);
+                appendDocumentLine(-1, entry);
+            }
+            documentChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete from mapped vector store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        List<String> matching = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Integer> entry : ordinalsById.entrySet()) {
+                if (FilterExpressionEvaluator.matches(filterExpression, readDocument(entry.getValue()).getMetadata())) {
+                    matching.add(entry.getKey());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        delete(matching);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = HnswIndex.normalize(embeddingModel.embed(request.getQuery()));
+        Filter.Expression filter = request.getFilterExpression();
+        int topK = request.getTopK();
+        lock.readLock().lock();
+        try {
+            if (vectors == null || topK <= 0) return List.of();
+            Map<Integer, Document> loaded = new HashMap<>();
+            List<HnswIndex.Candidate> ranked;
+            if (quantizer != null) {
+                List<HnswIndex.Candidate> firstPass = topCandidates(quantizer.prepare(query), topK * rerankFactor,
+                        Double.NEGATIVE_INFINITY, filter, loaded);
+                ranked = new ArrayList<>(firstPass.size());
+                for (HnswIndex.Candidate candidate : firstPass) {
+                    float exact = score(query, candidate.node());
+                    if (exact >= request.getSimilarityThreshold()) ranked.add(new HnswIndex.Candidate(candidate.node(), exact));
+                }
+                ranked.sort(Comparator.comparingDouble(HnswIndex.Candidate::score).reversed());
+                if (ranked.size() > topK) ranked = ranked.subList(0, topK);
+            } else {
+                ranked = topCandidates(ordinal -> score(query, ordinal), topK, request.getSimilarityThreshold(), filter, loaded);
+            }
+            List<Document> results = new ArrayList<>(ranked.size());
+            for (HnswIndex.Candidate candidate : ranked) {
+                Document document = loaded.containsKey(candidate.node()) ? loaded.get(candidate.node()) : readDocument(candidate.node());
+                results.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .score((double) candidate.score())
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> findByIds(String query, Collection<String> ids) {
+        float[] normalized = HnswIndex.normalize(embeddingModel.embed(query));
+        lock.readLock().lock();
+        try {
+            List<Document> found = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Integer ordinal = ordinalsById.get(id);
+                if (ordinal == null) continue;
+                Document document = readDocument(ordinal);
+                found.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .score((double) score(normalized, ordinal))
+                        .build());
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public QuantizationStats quantizationStats() {
+        lock.readLock().lock();
+        try {
+            long fullPrecisionBytes = (long) ordinalsById.size() * dimensions * Float.BYTES;
+            long codeBytes = quantizer != null ? quantizer.codeBytes() : fullPrecisionBytes;
+            return new QuantizationStats(quantization, ordinalsById.size(), fullPrecisionBytes, codeBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits up to {@code timeout} for background PQ training to finish, e.g. before measuring recall or
+     * memory. Returns whether searches now use quantization codes (always true without quantization).
+     */
+    public boolean awaitQuantizer(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (training.get() && System.nanoTime() < deadline) Thread.sleep(10);
+        lock.readLock().lock();
+        try {
+            return quantization == Quantization.NONE || quantizer != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<HnswIndex.Candidate> topCandidates(VectorQuantizer.Scorer scorer, int limit, double threshold,
+                                                    Filter.Expression filter, Map<Integer, Document> loaded) {
+        PriorityQueue<HnswIndex.Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(HnswIndex.Candidate::score));
+        RoaringBitmap allowed = metadataIndex.candidates(filter);
+        IntIterator ordinals = (allowed != null ? allowed : RoaringBitmap.bitmapOfRange(0, count)).getIntIterator();
+        while (ordinals.hasNext()) {
+            int ordinal = ordinals.next();
+            if (deleted.get(ordinal)) continue;
+            float score = scorer.score(ordinal);
+            if (score < threshold) continue;
+            if (best.size() == limit && score <= best.peek().score()) continue;
+            if (filter != null) {
+                Document document = readDocument(ordinal);
+                if (!FilterExpressionEvaluator.matches(filter, document.getMetadata())) continue;
+                loaded.put(ordinal, document);
+            }
+            best.add(new HnswIndex.Candidate(ordinal, score));
+            if (best.size() > limit) loaded.remove(best.poll().node());
+        }
+        List<HnswIndex.Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(HnswIndex.Candidate::score).reversed());
+        return ranked;
+    }
+
+    /**
+     * Visits the live documents in insertion order, e.g. to rebuild an index kept alongside this store.
+     */
+    public void forEachDocument(Consumer<Document> action) {
+        lock.readLock().lock();
+        try {
+            int[] ordinals = ordinalsById.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+            for (int ordinal : ordinals) action.accept(readDocument(ordinal));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-encodes the live vectors into fresh quantization codes, retraining PQ, so codes of deleted and
+     * replaced documents are dropped. Without quantization (or before PQ has enough vectors to train)
+     * searches scan the mapped vectors directly and there is nothing to rebuild.
+     */
+    public void rebuild() {
+        if (quantization == Quantization.NONE) return;
+        if (quantization == Quantization.PQ) {
+            if (size() < pqTrainingSize) return;
+            if (!training.compareAndSet(false, true)) throw new IllegalStateException("PQ training is already running for " + directory);
+            try {
+                trainQuantizer();
+            } finally {
+                training.set(false);
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (closed || vectors == null) return;
+            VectorQuantizer rebuilt = newQuantizer();
+            encode(rebuilt, 0, count);
+            quantizer = rebuilt;
+            saveQuantizer();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            if (quantizer != null) saveQuantizer();
+            if (arena != null) {
+                vectors.force();
+                arena.close();
+                vectorChannel.close();
+            }
+            documentChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void initQuantizer() {
+        if (quantization == Quantization.NONE) return;
+        VectorQuantizer restored = newQuantizer();
+        int restoredCount = restoreQuantizer(restored);
+        if (restoredCount >= 0) {
+            encode(restored, restoredCount, count);
+            quantizer = restored;
+            log.info("Restored {} codes for {} vectors from {}, encoded {} added since", quantization, restoredCount,
+                    QUANTIZER_FILE, count - restoredCount);
+            logQuantizationStats();
+        } else if (quantization == Quantization.INT8) {
+            VectorQuantizer int8 = newQuantizer();
+            encode(int8, 0, count);
+            quantizer = int8;
+            saveQuantizer();
+            logQuantizationStats();
+        } else if (ordinalsById.size() >= pqTrainingSize) {
+            trainInBackground();
+        }
+    }
+
+    private VectorQuantizer newQuantizer() {
+        return switch (quantization) {
+            case NONE -> null;
+            case INT8 -> new ScalarQuantizer(dimensions, (int) capacity);
+            case PQ -> new ProductQuantizer(dimensions, pqSubspaces, (int) capacity);
+        };
+    }
+
+    private void trainInBackground() {
+        if (!training.compareAndSet(false, true)) return;
+        Thread.ofPlatform().daemon().name("mapped-vector-store-pq").start(() -> {
+            try {
+                trainQuantizer();
+            } catch (RuntimeException e) {
+                log.warn("PQ training failed; searches keep scanning full-precision vectors", e);
+            } finally {
+                training.set(false);
+            }
+        });
+    }
+
+    /**
+     * Trains and encodes into a fresh quantizer while holding only the read lock, in chunks so writers
+     * are not starved, then encodes the vectors added meanwhile and publishes it under the write lock.
+     */
+    private void trainQuantizer() {
+        VectorQuantizer trained;
+        List<float[]> sample = new ArrayList<>(pqTrainingSize);
+        lock.readLock().lock();
+        try {
+            if (closed) return;
+            trained = newQuantizer();
+            int stride = Math.max(1, ordinalsById.size() / pqTrainingSize);
+            int seen = 0;
+            for (int ordinal = 0; ordinal < count && sample.size() < pqTrainingSize; ordinal++) {
+                if (!deleted.get(ordinal) && seen++ % stride == 0) sample.add(readVector(ordinal));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long start = System.nanoTime();
+        trained.train(sample);
+        int encoded = 0;
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (closed) return;
+                if (count - encoded <= ENCODE_CHUNK) break;
+                encode(trained, encoded, encoded + ENCODE_CHUNK);
+                encoded += ENCODE_CHUNK;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (closed) return;
+            encode(trained, encoded, count);
+            quantizer = trained;
+            saveQuantizer();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Trained {} quantizer on {} vectors in {} ms", quantization, sample.size(), (System.nanoTime() - start) / 1_000_000);
+        logQuantizationStats();
+    }
+
+    private void encode(VectorQuantizer target, int from, int to) {
+        for (int ordinal = from; ordinal < to; ordinal++) {
+            if (!deleted.get(ordinal)) target.encode(ordinal, readVector(ordinal));
+        }
+    }
+
+    /**
+     * Loads {@code quantizer.bin} into {@code target} and returns how many ordinals it covers, or -1 when
+     * it is missing, unreadable, written for another configuration or ahead of the committed vectors.
+     * Ordinals are append-only, so codes for ordinals below the stored count are still valid.
+     */
+    private int restoreQuantizer(VectorQuantizer target) {
+        Path file = directory.resolve(QUANTIZER_FILE);
+        if (!Files.exists(file)) return -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != QUANTIZER_MAGIC || !quantization.name().equals(in.readUTF()) || in.readInt() != dimensions) {
+                log.info("Ignoring {} written for a different quantization", file);
+                return -1;
+            }
+            int stored = in.readInt();
+            if (stored > count) {
+                log.warn("Ignoring {}: it covers {} vectors but only {} are committed", file, stored, count);
+                return -1;
+            }
+            target.read(in, stored);
+            return stored;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable {}: {}", file, e.getMessage());
+            return -1;
+        }
+    }
+
+    private void saveQuantizer() {
+        Path file = directory.resolve(QUANTIZER_FILE);
+        Path tmp = directory.resolve(QUANTIZER_FILE + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(QUANTIZER_MAGIC);
+                out.writeUTF(quantization.name());
+                out.writeInt(dimensions);
+                out.writeInt(count);
+                quantizer.write(out, count);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save {} codes to {}; they will be rebuilt on the next start", quantization, file, e);
+        }
+    }
+
+    private void logQuantizationStats() {
+        QuantizationStats stats = quantizationStats();
+        log.info("{} codes for {} vectors use {} bytes instead of {} ({}% saved)", stats.quantization(), stats.vectors(),
+                stats.codeBytes(), stats.fullPrecisionBytes(), Math.round(stats.savedRatio() * 100));
+    }
+
+    private float[] readVector(int ordinal) {
+        long base = HEADER_BYTES + (long) ordinal * dimensions * precision.bytes;
+        float[] vector = new float[dimensions];
+        if (precision == Precision.FLOAT32) {
+            for (int i = 0; i < dimensions; i++) vector[i] = vectors.getAtIndex(ValueLayout.JAVA_FLOAT, base / Float.BYTES + i);
+        } else {
+            for (int i = 0; i < dimensions; i++) vector[i] = Float.float16ToFloat(vectors.getAtIndex(ValueLayout.JAVA_SHORT, base / Short.BYTES + i));
+        }
+        return vector;
+    }
+
+    private float score(float[] query, int ordinal) {
+        long base = HEADER_BYTES + (long) ordinal * dimensions * precision.bytes;
+        if (precision == Precision.FLOAT32) return kernel.dot(query, vectors, base);
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) sum += query[i] * Float.float16ToFloat(vectors.getAtIndex(ValueLayout.JAVA_SHORT, base / Short.BYTES + i));
+        return sum;
+    }
+
+    private void writeVector(int ordinal, float[] vector) {
+        long base = HEADER_BYTES + (long) ordinal * dimensions * precision.bytes;
+        if (precision == Precision.FLOAT32) {
+            for (int i = 0; i < dimensions; i++) vectors.setAtIndex(ValueLayout.JAVA_FLOAT, base / Float.BYTES + i, vector[i]);
+        } else {
+            for (int i = 0; i < dimensions; i++) vectors.setAtIndex(ValueLayout.JAVA_SHORT, base / Short.BYTES + i, Float.floatToFloat16(vector[i]));
+        }
+    }
+
+    private void commit() throws IOException {
+        documentChannel.force(false);
+        vectors.force();
+        vectors.set(ValueLayout.JAVA_INT, COUNT_OFFSET, count);
+        vectors.asSlice(0, HEADER_BYTES).force();
+    }
+
+    private void createVectorFile(int dimensions) throws IOException {
+        this.dimensions = dimensions;
+        this.vectorChannel = FileChannel.open(directory.resolve(VECTORS_FILE),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        remap(INITIAL_CAPACITY);
+        vectors.set(ValueLayout.JAVA_INT, 0, MAGIC);
+        vectors.set(ValueLayout.JAVA_INT, 4, VERSION);
+        vectors.set(ValueLayout.JAVA_INT, DIMENSIONS_OFFSET, dimensions);
+        vectors.set(ValueLayout.JAVA_INT, PRECISION_OFFSET, precision.ordinal());
+        vectors.set(ValueLayout.JAVA_INT, COUNT_OFFSET, 0);
+    }
+
+    private void mapExisting(Path vectorFile) throws IOException {
+        this.vectorChannel = FileChannel.open(vectorFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (Arena headerArena = Arena.ofConfined()) {
+            MemorySegment header = vectorChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES, headerArena);
+            if (header.get(ValueLayout.JAVA_INT, 0) != MAGIC || header.get(ValueLayout.JAVA_INT, 4) != VERSION) {
+                throw new IllegalStateException(vectorFile + " is not a mapped vector store file");
+            }
+            this.dimensions = header.get(ValueLayout.JAVA_INT, DIMENSIONS_OFFSET);
+            Precision stored = Precision.values()[header.get(ValueLayout.JAVA_INT, PRECISION_OFFSET)];
+            if (stored != precision) log.warn("Configured precision {} ignored, {} was written with {}", precision, vectorFile, stored);
+            this.precision = stored;
+            this.count = header.get(ValueLayout.JAVA_INT, COUNT_OFFSET);
+        }
+        long recordBytes = (long) dimensions * precision.bytes;
+        remap(Math.max(INITIAL_CAPACITY, (vectorChannel.size() - HEADER_BYTES) / recordBytes));
+    }
+
+    private void remap(long newCapacity) throws IOException {
+        Arena newArena = Arena.ofShared();
+        MemorySegment mapped = vectorChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + newCapacity * dimensions * precision.bytes, newArena);
+        if (arena != null) {
+            vectors.force();
+            arena.close();
+        }
+        this.arena = newArena;
+        this.vectors = mapped;
+        this.capacity = newCapacity;
+    }
+
+    private void indexDocuments() throws IOException {
+        long size = documentChannel.size();
+        if (size == 0) return;
+        int ordinal = 0;
+        long lineStart = 0;
+        try (Arena scan = Arena.ofConfined()) {
+            MemorySegment segment = documentChannel.map(FileChannel.MapMode.READ_ONLY, 0, size, scan);
+            for (long position = 0; position < size; position++) {
+                if (segment.get(ValueLayout.JAVA_BYTE, position) != '\n') continue;
+                int length = (int) (position - lineStart);
+                String[] header = readHeader(segment.asSlice(lineStart, length).toArray(ValueLayout.JAVA_BYTE));
+                if (ADD.equals(header[1])) {
+                    if (ordinal >= count) break;
+                    trackDocument(ordinal, lineStart, length);
+                    Integer previous = ordinalsById.put(header[0], ordinal);
+                    if (previous != null) deleted.set(previous);
+                    ordinal++;
+                } else if (DELETE.equals(header[1])) {
+                    Integer removed = ordinalsById.remove(header[0]);
+                    if (removed != null) deleted.set(removed);
+                }
+                lineStart = position + 1;
+            }
+        }
+        if (lineStart < size) {
+            log.warn("Discarding {} uncommitted bytes from {}", size - lineStart, DOCUMENTS_FILE);
+            documentChannel.truncate(lineStart);
+        }
+        if (ordinal < count) {
+            log.warn("{} has {} vectors without documents; ignoring them", VECTORS_FILE, count - ordinal);
+            for (int missing = ordinal; missing < count; missing++) deleted.set(missing);
+        }
+        documentsEnd = lineStart;
+    }
+
+    private String[] readHeader(byte[] line) throws IOException {
+        String[] header = new String[2];
+        try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME && (header[0] == null || header[1] == null)) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("id".equals(field)) header[0] = parser.getText();
+                else if ("op".equals(field)) header[1] = parser.getText();
+                else parser.skipChildren();
+            }
+        }
+        return header;
+    }
+
+    private void appendDocumentLine(int ordinal, Map<String, Object> entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        long offset = documentsEnd;
+        while (buffer.hasRemaining()) documentsEnd += documentChannel.write(buffer, documentsEnd);
+        if (ordinal >= 0) trackDocument(ordinal, offset, json.length);
+    }
+
+    private void trackDocument(int ordinal, long offset, int length) {
+        if (ordinal >= documentOffsets.length) {
+            documentOffsets = Arrays.copyOf(documentOffsets, Math.max(ordinal + 1, documentOffsets.length * 2));
+            documentLengths = Arrays.copyOf(documentLengths, documentOffsets.length);
+        }
+        documentOffsets[ordinal] = offset;
+        documentLengths[ordinal] = length;
+    }
+
+    private Document readDocument(int ordinal) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(documentLengths[ordinal]);
+            long position = documentOffsets[ordinal];
+            while (buffer.hasRemaining()) {
+                int read = documentChannel.read(buffer, position + buffer.position());
+                if (read < 0) throw new IOException("Unexpected end of " + DOCUMENTS_FILE);
+            }
+            Map<String, Object> entry = objectMapper.readValue(buffer.array(), new TypeReference<>() {
+            });
+            @SuppressWarnings("unchecked")
+            Map<String, Object> metadata = (Map<String, Object>) entry.getOrDefault("metadata", Map.of());
+            return Document.builder()
+                    .id((String) entry.get("id"))
+                    .text((String) entry.get("text"))
+                    .metadata(metadata)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read document " + ordinal + " from " + DOCUMENTS_FILE, e);
+        }
+    }
+
+    public enum Precision {
+        FLOAT32(Float.BYTES),
+        FLOAT16(Short.BYTES);
+
+        private final int bytes;
+
+        Precision(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    public enum Quantization {
+        NONE,
+        INT8,
+        PQ
+    }
+
+    public record QuantizationStats(Quantization quantization, int vectors, long fullPrecisionBytes, long codeBytes) {
+
+        public double savedRatio() {
+            return fullPrecisionBytes == 0 ? 0 : 1 - (double) codeBytes / fullPrecisionBytes;
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel embeddingModel;
+        private final Path directory;
+        private Precision precision = Precision.FLOAT32;
+        private Quantization quantization = Quantization.NONE;
+        private int pqSubspaces = 96;
+        private int pqTrainingSize = 5000;
+        private int rerankFactor = 4;
+        private Set<String> metadataKeys = Set.of();
+
+        private Builder(EmbeddingModel embeddingModel, Path directory) {
+            this.embeddingModel = embeddingModel;
+            this.directory = directory;
+        }
+
+        public Builder precision(Precision precision) {
+            this.precision = precision;
+            return this;
+        }
+
+        public Builder quantization(Quantization quantization) {
+            this.quantization = quantization;
+            return this;
+        }
+
+        public Builder pqSubspaces(int pqSubspaces) {
+            this.pqSubspaces = pqSubspaces;
+            return this;
+        }
+
+        public Builder pqTrainingSize(int pqTrainingSize) {
+            this.pqTrainingSize = pqTrainingSize;
+            return this;
+        }
+
+        public Builder rerankFactor(int rerankFactor) {
+            this.rerankFactor = rerankFactor;
+            return this;
+        }
+
+        /**
+         * Metadata keys kept in bitmap indexes so that filters on them are resolved before the scan.
+         */
+        public Builder metadataKeys(Set<String> metadataKeys) {
+            this.metadataKeys = metadataKeys;
+            return this;
+        }
+
+        public MappedVectorStore build() {
+            return new MappedVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.vectorstore;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Roaring bitmaps of ordinals per value of selected metadata keys, plus a sorted view of numeric values
+ * for range predicates. {@link #candidates} turns a filter expression into a superset of the ordinals that
+ * can match (callers still evaluate the full expression on each candidate), or {@code null} when the
+ * expression touches unindexed keys in a way that rules out pre-filtering. An EQ or IN on a null value
+ * matches the ordinals without that key. Removed ordinals are only
+ * cleared from the live set; value bitmaps keep them and are always intersected with it. Not thread-safe:
+ * callers hold the owning store's lock.
+ */
+final class MetadataBitmapIndex {
+
+    private final Set<String> keys;
+    private final Map<String, Map<Object, RoaringBitmap>> values = new HashMap<>();
+    private final Map<String, NavigableMap<Double, RoaringBitmap>> numericValues = new HashMap<>();
+    private final Map<String, RoaringBitmap> present = new HashMap<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    MetadataBitmapIndex(Set<String> keys) {
+        this.keys = Set.copyOf(keys);
+    }
+
+    boolean isEnabled() {
+        return !keys.isEmpty();
+    }
+
+    void add(int ordinal, Map<String, Object> metadata) {
+        if (keys.isEmpty()) return;
+        live.add(ordinal);
+        for (String key : keys) {
+            Object value = FilterExpressionEvaluator.normalize(metadata.get(key));
+            if (value == null) continue;
+            present.computeIfAbsent(key, k -> new RoaringBitmap()).add(ordinal);
+            RoaringBitmap bitmap = values.computeIfAbsent(key, k -> new HashMap<>()).computeIfAbsent(value, v -> new RoaringBitmap());
+            bitmap.add(ordinal);
+            if (value instanceof Double number) numericValues.computeIfAbsent(key, k -> new TreeMap<>()).putIfAbsent(number, bitmap);
+        }
+    }
+
+    void remove(int ordinal) {
+        live.remove(ordinal);
+    }
+
+    void clear() {
+        values.clear();
+        numericValues.clear();
+        present.clear();
+        live.clear();
+    }
+
+    RoaringBitmap candidates(Filter.Expression filter) {
+        if (filter == null || keys.isEmpty()) return null;
+        RoaringBitmap superset = superset(filter);
+        return superset == null ? null : RoaringBitmap.and(superset, live);
+    }
+
+    private RoaringBitmap superset(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) return superset(group.content());
+        if (!(operand instanceof Filter.Expression expression)) return null;
+        return switch (expression.type()) {
+            case AND -> {
+                RoaringBitmap left = superset(expression.left());
+                RoaringBitmap right = superset(expression.right());
+                yield left == null ? right : right == null ? left : RoaringBitmap.and(left, right);
+            }
+            case OR -> {
+                RoaringBitmap left = superset(expression.left());
+                RoaringBitmap right = left == null ? null : superset(expression.right());
+                yield right == null ? null : RoaringBitmap.or(left, right);
+            }
+            case EQ -> equal(expression);
+            case IN -> in(expression);
+            case GT, GTE, LT, LTE -> range(expression);
+            default -> null;
+        };
+    }
+
+    private RoaringBitmap equal(Filter.Expression expression) {
+        String key = indexedKey(expression);
+        if (key == null || !(expression.right() instanceof Filter.Value value)) return null;
+        return bitmap(key, value.value());
+    }
+
+    private RoaringBitmap in(Filter.Expression expression) {
+        String key = indexedKey(expression);
+        if (key == null || !(expression.right() instanceof Filter.Value value)) return null;
+        if (!(value.value() instanceof Collection<?> candidates)) return equal(expression);
+        List<RoaringBitmap> matching = new ArrayList<>(candidates.size());
+        for (Object candidate : candidates) {
+            RoaringBitmap bitmap = bitmap(key, candidate);
+            if (!bitmap.isEmpty()) matching.add(bitmap);
+        }
+        return matching.isEmpty() ? new RoaringBitmap() : FastAggregation.or(matching.iterator());
+    }
+
+    private RoaringBitmap bitmap(String key, Object value) {
+        if (value == null) return RoaringBitmap.andNot(live, present.getOrDefault(key, new RoaringBitmap()));
+        RoaringBitmap bitmap = values.getOrDefault(key, Map.of()).get(FilterExpressionEvaluator.normalize(value));
+        return bitmap != null ? bitmap : new RoaringBitmap();
+    }
+
+    private RoaringBitmap range(Filter.Expression expression) {
+        String key = indexedKey(expression);
+        if (key == null || !(expression.right() instanceof Filter.Value value) || !(value.value() instanceof Number bound)) return null;
+        NavigableMap<Double, RoaringBitmap> sorted = numericValues.getOrDefault(key, new TreeMap<>());
+        double limit = bound.doubleValue();
+        Collection<RoaringBitmap> matching = switch (expression.type()) {
+            case GT -> sorted.tailMap(limit, false).values();
+            case GTE -> sorted.tailMap(limit, true).values();
+            case LT -> sorted.headMap(limit, false).values();
+            case LTE -> sorted.headMap(limit, true).values();
+            default -> throw new IllegalStateException("Not a range expression: " + expression.type());
+        };
+        return matching.isEmpty() ? new RoaringBitmap() : FastAggregation.or(matching.iterator());
+    }
+
+    private String indexedKey(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key)) return null;
+        String name = FilterExpressionEvaluator.unquote(key.key());
+        return keys.contains(name) ? name : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serves vectors that are already known, keyed by text, to a store that would otherwise embed again: the
+ * write-ahead log replays recorded embeddings into its segments this way. Vectors are bound for the
+ * current thread only; a request with any text not bound goes to the delegate as a whole.
+ */
+final class PrecomputedEmbeddingModel implements EmbeddingModel {
+
+    private static final ScopedValue<Map<String, float[]>> VECTORS = ScopedValue.newInstance();
+
+    private final EmbeddingModel delegate;
+
+    PrecomputedEmbeddingModel(EmbeddingModel delegate) {
+        this.delegate = delegate;
+    }
+
+    <T> T with(Map<String, float[]> vectors, Supplier<T> work) {
+        return ScopedValue.where(VECTORS, vectors).call(work::get);
+    }
+
+    void with(Map<String, float[]> vectors, Runnable work) {
+        ScopedValue.where(VECTORS, vectors).run(work);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        if (!VECTORS.isBound()) return delegate.call(request);
+        Map<String, float[]> vectors = VECTORS.get();
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (String text : request.getInstructions()) {
+            float[] vector = vectors.get(text);
+            if (vector == null) return delegate.call(request);
+            embeddings.add(new Embedding(vector, embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = VECTORS.isBound() ? VECTORS.get().get(text) : null;
+        return vector != null ? vector : delegate.embed(text);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        float[] vector = VECTORS.isBound() ? VECTORS.get().get(document.getText()) : null;
+        return vector != null ? vector : delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
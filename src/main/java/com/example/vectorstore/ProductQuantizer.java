@@ -0,0 +1,153 @@
+package com.example.vectorstore;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Product quantization: the vector is split into {@code subspaces} contiguous slices and each slice is
+ * replaced by the index of its nearest of 256 k-means centroids, so a vector costs one byte per
+ * subspace. Queries are scored with asymmetric distance computation against a per-query lookup table.
+ */
+final class ProductQuantizer implements VectorQuantizer {
+
+    private static final int CENTROIDS = 256;
+    private static final int ITERATIONS = 8;
+
+    private final int dimensions;
+    private final int subspaces;
+    private final int[] offsets;
+    private float[][] codebooks;
+    private byte[] codes;
+
+    ProductQuantizer(int dimensions, int subspaces, int initialCapacity) {
+        if (subspaces < 1 || subspaces > dimensions) {
+            throw new IllegalArgumentException("PQ subspaces must be between 1 and " + dimensions);
+        }
+        this.dimensions = dimensions;
+        this.subspaces = subspaces;
+        this.offsets = new int[subspaces + 1];
+        for (int s = 0; s <= subspaces; s++) offsets[s] = (int) ((long) s * dimensions / subspaces);
+        this.codes = new byte[initialCapacity * subspaces];
+    }
+
+    @Override
+    public boolean isTrained() {
+        return codebooks != null;
+    }
+
+    @Override
+    public void train(List<float[]> sample) {
+        if (sample.isEmpty()) throw new IllegalArgumentException("PQ training needs at least one vector");
+        SplittableRandom random = new SplittableRandom(17);
+        float[][] trained = new float[subspaces][];
+        for (int s = 0; s < subspaces; s++) trained[s] = kMeans(sample, offsets[s], offsets[s + 1] - offsets[s], random);
+        this.codebooks = trained;
+    }
+
+    @Override
+    public void encode(int ordinal, float[] vector) {
+        if ((ordinal + 1) * subspaces > codes.length) {
+            codes = Arrays.copyOf(codes, Math.max((ordinal + 1) * subspaces, codes.length * 2));
+        }
+        for (int s = 0; s < subspaces; s++) {
+            int width = offsets[s + 1] - offsets[s];
+            codes[ordinal * subspaces + s] = (byte) nearest(codebooks[s], vector, offsets[s], width);
+        }
+    }
+
+    @Override
+    public Scorer prepare(float[] query) {
+        SimilarityKernel kernel = SimilarityKernels.get();
+        float[] table = new float[subspaces * CENTROIDS];
+        for (int s = 0; s < subspaces; s++) {
+            int width = offsets[s + 1] - offsets[s];
+            for (int c = 0; c < CENTROIDS; c++) {
+                table[s * CENTROIDS + c] = kernel.dot(query, offsets[s], codebooks[s], c * width, width);
+            }
+        }
+        return ordinal -> {
+            int base = ordinal * subspaces;
+            float sum = 0;
+            for (int s = 0; s < subspaces; s++) sum += table[s * CENTROIDS + (codes[base + s] & 0xFF)];
+            return sum;
+        };
+    }
+
+    @Override
+    public long codeBytes() {
+        long codebookBytes = (long) dimensions * CENTROIDS * Float.BYTES;
+        return codes.length + codebookBytes;
+    }
+
+    @Override
+    public void write(DataOutput out, int count) throws IOException {
+        out.writeInt(subspaces);
+        for (float[] codebook : codebooks) {
+            out.writeInt(codebook.length);
+            for (float value : codebook) out.writeFloat(value);
+        }
+        out.write(codes, 0, count * subspaces);
+    }
+
+    @Override
+    public void read(DataInput in, int count) throws IOException {
+        int stored = in.readInt();
+        if (stored != subspaces) throw new IOException("Codes were written with " + stored + " subspaces, not " + subspaces);
+        float[][] loaded = new float[subspaces][];
+        for (int s = 0; s < subspaces; s++) {
+            int length = in.readInt();
+            if (length != CENTROIDS * (offsets[s + 1] - offsets[s])) throw new IOException("Unexpected codebook size " + length);
+            loaded[s] = new float[length];
+            for (int i = 0; i < length; i++) loaded[s][i] = in.readFloat();
+        }
+        if (count * subspaces > codes.length) codes = new byte[count * subspaces];
+        in.readFully(codes, 0, count * subspaces);
+        this.codebooks = loaded;
+    }
+
+    private static float[] kMeans(List<float[]> sample, int offset, int width, SplittableRandom random) {
+        int k = Math.min(CENTROIDS, sample.size());
+        float[] centroids = new float[CENTROIDS * width];
+        for (int c = 0; c < CENTROIDS; c++) {
+            float[] seed = sample.get(c < k ? random.nextInt(sample.size()) : c % sample.size());
+            System.arraycopy(seed, offset, centroids, c * width, width);
+        }
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            float[] sums = new float[CENTROIDS * width];
+            int[] counts = new int[CENTROIDS];
+            for (int v = 0; v < sample.size(); v++) {
+                float[] vector = sample.get(v);
+                int c = nearest(centroids, vector, offset, width);
+                counts[c]++;
+                for (int i = 0; i < width; i++) sums[c * width + i] += vector[offset + i];
+            }
+            for (int c = 0; c < CENTROIDS; c++) {
+                if (counts[c] == 0) {
+                    float[] reseed = sample.get(random.nextInt(sample.size()));
+                    System.arraycopy(reseed, offset, centroids, c * width, width);
+                    continue;
+                }
+                for (int i = 0; i < width; i++) centroids[c * width + i] = sums[c * width + i] / counts[c];
+            }
+        }
+        return centroids;
+    }
+
+    private static int nearest(float[] centroids, float[] vector, int offset, int width) {
+        SimilarityKernel kernel = SimilarityKernels.get();
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < CENTROIDS; c++) {
+            float distance = kernel.squaredL2(vector, offset, centroids, c * width, width);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
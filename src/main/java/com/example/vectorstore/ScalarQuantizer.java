@@ -0,0 +1,76 @@
+package com.example.vectorstore;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Int8 scalar quantization with a per-vector absmax scale: one byte per dimension plus one float per
+ * vector. Needs no training, so every vector is encoded as soon as it is added.
+ */
+final class ScalarQuantizer implements VectorQuantizer {
+
+    private final int dimensions;
+    private byte[] codes;
+    private float[] scales;
+
+    ScalarQuantizer(int dimensions, int initialCapacity) {
+        this.dimensions = dimensions;
+        this.codes = new byte[initialCapacity * dimensions];
+        this.scales = new float[initialCapacity];
+    }
+
+    @Override
+    public boolean isTrained() {
+        return true;
+    }
+
+    @Override
+    public void train(List<float[]> sample) {
+    }
+
+    @Override
+    public void encode(int ordinal, float[] vector) {
+        if (ordinal >= scales.length) {
+            scales = Arrays.copyOf(scales, Math.max(ordinal + 1, scales.length * 2));
+            codes = Arrays.copyOf(codes, scales.length * dimensions);
+        }
+        float max = 0;
+        for (float value : vector) max = Math.max(max, Math.abs(value));
+        float scale = max == 0 ? 0 : max / Byte.MAX_VALUE;
+        int base = ordinal * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            codes[base + i] = scale == 0 ? 0 : (byte) Math.round(vector[i] / scale);
+        }
+        scales[ordinal] = scale;
+    }
+
+    @Override
+    public Scorer prepare(float[] query) {
+        SimilarityKernel kernel = SimilarityKernels.get();
+        return ordinal -> kernel.dot(query, codes, ordinal * dimensions, dimensions) * scales[ordinal];
+    }
+
+    @Override
+    public long codeBytes() {
+        return (long) codes.length + (long) scales.length * Float.BYTES;
+    }
+
+    @Override
+    public void write(DataOutput out, int count) throws IOException {
+        for (int ordinal = 0; ordinal < count; ordinal++) out.writeFloat(scales[ordinal]);
+        out.write(codes, 0, count * dimensions);
+    }
+
+    @Override
+    public void read(DataInput in, int count) throws IOException {
+        if (count > scales.length) {
+            scales = new float[count];
+            codes = new byte[count * dimensions];
+        }
+        for (int ordinal = 0; ordinal < count; ordinal++) scales[ordinal] = in.readFloat();
+        in.readFully(codes, 0, count * dimensions);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.vectorstore;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+public final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) sum += a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, MemorySegment b, long bOffset) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b.get(ValueLayout.JAVA_FLOAT, bOffset + (long) i * Float.BYTES);
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, byte[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) sum += a[i] * b[bOffset + i];
+        return sum;
+    }
+
+    @Override
+    public float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            float diff = a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+}
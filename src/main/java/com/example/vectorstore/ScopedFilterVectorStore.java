@@ -0,0 +1,87 @@
+package com.example.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link VectorStore} decorator that narrows every search made inside {@link #withFilter} by an extra
+ * filter expression, combined with the request's own filter by AND. This lets a controller restrict
+ * retrieval (by source, tenant or ingestion time) for code that builds its own {@link SearchRequest}.
+ * Likewise every document added inside {@link #withMetadata} gets the given entries merged into its
+ * metadata, e.g. to tag what a service ingests with the caller's tenant.
+ */
+public class ScopedFilterVectorStore implements VectorStore, AutoCloseable {
+
+    private static final ScopedValue<Filter.Expression> FILTER = ScopedValue.newInstance();
+    private static final ScopedValue<Map<String, Object>> METADATA = ScopedValue.newInstance();
+
+    private final VectorStore delegate;
+
+    public ScopedFilterVectorStore(VectorStore delegate) {
+        this.delegate = delegate;
+    }
+
+    public static <T> T withFilter(Filter.Expression filter, Supplier<T> work) {
+        if (filter == null) return work.get();
+        return ScopedValue.where(FILTER, filter).call(work::get);
+    }
+
+    public static <T, X extends Throwable> T withMetadata(Map<String, Object> metadata, ScopedValue.CallableOp<T, X> work) throws X {
+        if (metadata.isEmpty()) return work.call();
+        return ScopedValue.where(METADATA, Map.copyOf(metadata)).call(work);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (!METADATA.isBound()) {
+            delegate.add(documents);
+            return;
+        }
+        Map<String, Object> stamp = METADATA.get();
+        delegate.add(documents.stream().map(document -> {
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.putAll(stamp);
+            return Document.builder()
+                    .id(document.getId())
+                    .text(document.getText())
+                    .metadata(metadata)
+                    .score(document.getScore())
+                    .build();
+        }).toList());
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (!FILTER.isBound()) return delegate.similaritySearch(request);
+        Filter.Expression scoped = FILTER.get();
+        Filter.Expression own = request.getFilterExpression();
+        return delegate.similaritySearch(SearchRequest.builder()
+                .query(request.getQuery())
+                .topK(request.getTopK())
+                .similarityThreshold(request.getSimilarityThreshold())
+                .filterExpression(own == null ? scoped : new Filter.Expression(Filter.ExpressionType.AND, own, scoped))
+                .build());
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) closeable.close();
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.vectorstore;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * {@link VectorStore} partitioned into independent shards. Documents with a tenant metadata value go to
+ * that tenant's shard; the rest are spread over {@code hashShards} shards by id. A search whose filter
+ * pins the tenant (EQ or IN, combined by AND or OR) only visits those tenants' shards, where a null tenant
+ * stands for the untagged documents in the hash shards; any other search visits every shard. Shards are searched in parallel on virtual threads, each for the full top-k, and the
+ * results are merged through a bounded min-heap. Shards share one query embedding: concurrent embeddings
+ * of the same query text are collapsed into a single call. Deletes by id go to every shard; re-adding a
+ * document under a different tenant does not remove the copy in its old shard.
+ * <p>
+ * Every shard has its own lock, so {@link #rebuild(String)} on one shard does not block searches on the
+ * others. Shards must be hnsw, mapped or write-ahead logged stores, which all know how to rebuild; any other
+ * store is rejected when its shard is opened. Sizes and per-shard search latency are published as
+ * {@code vectorstore.shard.size} and {@code vectorstore.shard.search}.
+ */
+@Slf4j
+public class ShardedVectorStore implements VectorStore, DocumentLookup, AutoCloseable {
+
+    public static final String TENANT_PREFIX = "tenant-";
+    public static final String HASH_PREFIX = "shard-";
+
+    private final EmbeddingModel embeddingModel;
+    private final BiFunction<String, EmbeddingModel, VectorStore> shardFactory;
+    private final String tenantKey;
+    private final int hashShards;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private ShardedVectorStore(Builder builder) {
+        this.embeddingModel = new SingleFlightEmbeddingModel(builder.embeddingModel);
+        this.shardFactory = builder.shardFactory;
+        this.tenantKey = builder.tenantKey;
+        this.hashShards = builder.hashShards;
+        this.meterRegistry = builder.meterRegistry;
+        for (int i = 0; i < hashShards; i++) shard(HASH_PREFIX + i);
+        builder.existingShards.forEach(this::shard);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel, BiFunction<String, EmbeddingModel, VectorStore> shardFactory) {
+        return new Builder(embeddingModel, shardFactory);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        Map<String, List<Document>> byShard = new LinkedHashMap<>();
+        for (Document document : documents) byShard.computeIfAbsent(shardFor(document), name -> new ArrayList<>()).add(document);
+        byShard.forEach((name, batch) -> shard(name).store().add(batch));
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        for (Shard shard : shards.values()) shard.store().delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        for (Shard shard : targets(filterExpression)) shard.store().delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        List<Shard> targets = targets(request.getFilterExpression());
+        if (targets.isEmpty() || request.getTopK() <= 0) return List.of();
+        if (targets.size() == 1) return targets.getFirst().search(request);
+
+        List<CompletableFuture<List<Document>>> results = new ArrayList<>(targets.size());
+        for (Shard shard : targets) results.add(CompletableFuture.supplyAsync(() -> shard.search(request), searchExecutor));
+        PriorityQueue<Document> best = new PriorityQueue<>(request.getTopK() + 1, Comparator.comparingDouble(ShardedVectorStore::score));
+        for (CompletableFuture<List<Document>> result : results) {
+            List<Document> documents;
+            try {
+                documents = result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+            for (Document document : documents) {
+                if (best.size() == request.getTopK() && score(document) <= score(best.peek())) break;
+                best.add(document);
+                if (best.size() > request.getTopK()) best.poll();
+            }
+        }
+        List<Document> merged = new ArrayList<>(best);
+        merged.sort(Comparator.comparingDouble(ShardedVectorStore::score).reversed());
+        return merged;
+    }
+
+    /**
+     * Asks every shard, since a document's shard depends on metadata the caller may not have.
+     */
+    @Override
+    public List<Document> findByIds(String query, Collection<String> ids) {
+        if (ids.isEmpty()) return List.of();
+        List<Document> found = new ArrayList<>();
+        for (Shard shard : shards.values()) {
+            if (shard.store() instanceof DocumentLookup lookup) found.addAll(lookup.findByIds(query, ids));
+        }
+        return found;
+    }
+
+    /**
+     * Shard names with their document counts, or -1 where the shard's store does not report a size.
+     */
+    public Map<String, Integer> shardSizes() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        shards.forEach((name, shard) -> sizes.put(name, shard.size()));
+        return sizes;
+    }
+
+    public Map<String, VectorStore> shards() {
+        Map<String, VectorStore> stores = new TreeMap<>();
+        shards.forEach((name, shard) -> stores.put(name, shard.store()));
+        return stores;
+    }
+
+    /**
+     * Rebuilds one shard's index while the other shards keep serving: the hnsw graph, the mapped store's
+     * quantization codes, or a compaction of the write-ahead log and its segments.
+     */
+    public void rebuild(String name) {
+        Shard shard = shards.get(name);
+        if (shard == null) throw new IllegalArgumentException("Unknown shard: " + name);
+        long start = System.nanoTime();
+        switch (shard.store()) {
+            case HnswVectorStore hnsw -> hnsw.rebuild();
+            case MappedVectorStore mapped -> mapped.rebuild();
+            case WriteAheadLogVectorStore logged -> logged.rebuild();
+            default -> throw new IllegalStateException("Shard " + name + " is not rebuildable: " + shard.store().getClass().getSimpleName());
+        }
+        log.info("Rebuilt shard {} ({} documents) in {} ms", name, shard.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void close() throws Exception {
+        searchExecutor.close();
+        for (Shard shard : shards.values()) {
+            if (shard.store() instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+
+    public static String tenantShard(String tenant) {
+        return TENANT_PREFIX + URLEncoder.encode(tenant, StandardCharsets.UTF_8);
+    }
+
+    private String shardFor(Document document) {
+        Object tenant = document.getMetadata().get(tenantKey);
+        if (tenant != null && !tenant.toString().isBlank()) return tenantShard(tenant.toString());
+        return HASH_PREFIX + Math.floorMod(document.getId().hashCode(), hashShards);
+    }
+
+    private List<Shard> targets(Filter.Expression filter) {
+        Set<String> names = shardNames(filter);
+        if (names == null) return List.copyOf(shards.values());
+        List<Shard> targets = new ArrayList<>(names.size());
+        for (String name : names) {
+            Shard shard = shards.get(name);
+            if (shard != null) targets.add(shard);
+        }
+        return targets;
+    }
+
+    /**
+     * Shards a filter restricts results to, or {@code null} when it does not pin the tenant.
+     */
+    private Set<String> shardNames(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) return shardNames(group.content());
+        if (!(operand instanceof Filter.Expression expression)) return null;
+        return switch (expression.type()) {
+            case AND -> {
+                Set<String> left = shardNames(expression.left());
+                Set<String> right = shardNames(expression.right());
+                if (left == null) yield right;
+                if (right == null) yield left;
+                left.retainAll(right);
+                yield left;
+            }
+            case OR -> {
+                Set<String> left = shardNames(expression.left());
+                Set<String> right = left == null ? null : shardNames(expression.right());
+                if (right == null) yield null;
+                left.addAll(right);
+                yield left;
+            }
+            case EQ, IN -> {
+                if (!(expression.left() instanceof Filter.Key key) || !tenantKey.equals(FilterExpressionEvaluator.unquote(key.key()))
+                        || !(expression.right() instanceof Filter.Value value)) yield null;
+                Set<String> names = new LinkedHashSet<>();
+                if (value.value() instanceof Collection<?> values) values.forEach(v -> addShardNames(v, names));
+                else addShardNames(value.value(), names);
+                yield names;
+            }
+            default -> null;
+        };
+    }
+
+    private void addShardNames(Object tenant, Set<String> names) {
+        if (tenant != null && !tenant.toString().isBlank()) {
+            names.add(tenantShard(tenant.toString()));
+            return;
+        }
+        for (int i = 0; i < hashShards; i++) names.add(HASH_PREFIX + i);
+    }
+
+    private Shard shard(String name) {
+        return shards.computeIfAbsent(name, key -> {
+            VectorStore store = shardFactory.apply(key, embeddingModel);
+            if (!isRebuildable(store)) {
+                throw new IllegalArgumentException("Shard " + key + " must be an hnsw, mapped or write-ahead logged store, got "
+                        + store.getClass().getSimpleName());
+            }
+            Shard shard = new Shard(key, store, meterRegistry);
+            log.info("Opened vector store shard {}", key);
+            return shard;
+        });
+    }
+
+    private static boolean isRebuildable(VectorStore store) {
+        return store instanceof HnswVectorStore || store instanceof MappedVectorStore || store instanceof WriteAheadLogVectorStore;
+    }
+
+    private static double score(Document document) {
+        return document.getScore() == null ? 0 : document.getScore();
+    }
+
+    private static final class Shard {
+
+        private final String name;
+        private final VectorStore store;
+        private final Timer searchTimer;
+
+        private Shard(String name, VectorStore store, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.store = store;
+            if (meterRegistry != null) {
+                this.searchTimer = Timer.builder("vectorstore.shard.search")
+                        .description("Per-shard similarity search latency")
+                        .tag("shard", name)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry);
+                Gauge.builder("vectorstore.shard.size", this, Shard::size)
+                        .description("Documents held by the shard (-1 if the store does not report it)")
+                        .tag("shard", name)
+                        .register(meterRegistry);
+            } else {
+                this.searchTimer = null;
+            }
+        }
+
+        VectorStore store() {
+            return store;
+        }
+
+        List<Document> search(SearchRequest request) {
+            if (searchTimer == null) return store.similaritySearch(request);
+            return searchTimer.record(() -> store.similaritySearch(request));
+        }
+
+        int size() {
+            if (store instanceof HnswVectorStore hnsw) return hnsw.size();
+            if (store instanceof MappedVectorStore mapped) return mapped.size();
+            if (store instanceof WriteAheadLogVectorStore logged) return logged.size();
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Collapses concurrent embeddings of the same text, so a query fanned out to every shard is embedded once.
+     */
+    private static final class SingleFlightEmbeddingModel implements EmbeddingModel {
+
+        private final EmbeddingModel delegate;
+        private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+        private SingleFlightEmbeddingModel(EmbeddingModel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public float[] embed(String text) {
+            CompletableFuture<float[]> mine = new CompletableFuture<>();
+            CompletableFuture<float[]> existing = inFlight.putIfAbsent(text, mine);
+            if (existing != null) {
+                try {
+                    return existing.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException cause) throw cause;
+                    throw e;
+                }
+            }
+            try {
+                float[] vector = delegate.embed(text);
+                mine.complete(vector);
+                return vector;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(text, mine);
+            }
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            return delegate.call(request);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return delegate.embed(document);
+        }
+
+        @Override
+        public int dimensions() {
+            return delegate.dimensions();
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel embeddingModel;
+        private final BiFunction<String, EmbeddingModel, VectorStore> shardFactory;
+        private String tenantKey = "tenant";
+        private int hashShards = 4;
+        private Collection<String> existingShards = List.of();
+        private MeterRegistry meterRegistry;
+
+        private Builder(EmbeddingModel embeddingModel, BiFunction<String, EmbeddingModel, VectorStore> shardFactory) {
+            this.embeddingModel = embeddingModel;
+            this.shardFactory = shardFactory;
+        }
+
+        public Builder tenantKey(String tenantKey) {
+            this.tenantKey = tenantKey;
+            return this;
+        }
+
+        public Builder hashShards(int hashShards) {
+            if (hashShards < 1) throw new IllegalArgumentException("hashShards must be positive");
+            this.hashShards = hashShards;
+            return this;
+        }
+
+        /**
+         * Shards to open eagerly, e.g. tenant shards persisted by a previous run.
+         */
+        public Builder existingShards(Collection<String> existingShards) {
+            this.existingShards = existingShards;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public ShardedVectorStore build() {
+            return new ShardedVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.vectorstore;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Similarity primitives used by the vector stores. Offsets and lengths are in elements except for
+ * {@link MemorySegment} offsets, which are in bytes.
+ */
+public interface SimilarityKernel {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    float dot(float[] a, MemorySegment b, long bOffset);
+
+    float dot(float[] a, byte[] b, int bOffset, int length);
+
+    float squaredL2(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    default float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    default float cosine(float[] a, float[] b) {
+        float normA = dot(a, a);
+        float normB = dot(b, b);
+        if (normA == 0 || normB == 0) return 0;
+        return (float) (dot(a, b) / Math.sqrt((double) normA * normB));
+    }
+
+    default float l2(float[] a, float[] b) {
+        return (float) Math.sqrt(squaredL2(a, 0, b, 0, a.length));
+    }
+}
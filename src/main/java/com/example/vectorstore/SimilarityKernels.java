@@ -0,0 +1,44 @@
+package com.example.vectorstore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks the similarity kernel once per JVM: the Vector API kernel when {@code jdk.incubator.vector} is
+ * resolved and {@code -Dapp.vectorstore.simd=false} is not set, the scalar kernel otherwise.
+ */
+@Slf4j
+public final class SimilarityKernels {
+
+    private static final SimilarityKernel SCALAR = new ScalarSimilarityKernel();
+    private static final SimilarityKernel SELECTED = select();
+
+    private SimilarityKernels() {
+    }
+
+    public static SimilarityKernel get() {
+        return SELECTED;
+    }
+
+    public static SimilarityKernel scalar() {
+        return SCALAR;
+    }
+
+    private static SimilarityKernel select() {
+        if (!Boolean.parseBoolean(System.getProperty("app.vectorstore.simd", "true"))) {
+            log.info("Vector API similarity kernel disabled, using scalar kernel");
+            return SCALAR;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("jdk.incubator.vector not resolved (start with --add-modules jdk.incubator.vector), using scalar kernel");
+            return SCALAR;
+        }
+        try {
+            SimilarityKernel kernel = new VectorApiSimilarityKernel();
+            log.info("Using Vector API similarity kernel");
+            return kernel;
+        } catch (LinkageError e) {
+            log.warn("Vector API similarity kernel unavailable, using scalar kernel", e);
+            return SCALAR;
+        }
+    }
+}
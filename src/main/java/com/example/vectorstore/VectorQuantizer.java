@@ -0,0 +1,40 @@
+package com.example.vectorstore;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compact approximate encoding of unit-normalized vectors, addressed by ordinal, used for the first
+ * search pass before an exact re-rank.
+ */
+interface VectorQuantizer {
+
+    boolean isTrained();
+
+    void train(List<float[]> sample);
+
+    void encode(int ordinal, float[] vector);
+
+    Scorer prepare(float[] query);
+
+    long codeBytes();
+
+    /**
+     * Writes the trained state and the codes of ordinals {@code [0, count)}.
+     */
+    void write(DataOutput out, int count) throws IOException;
+
+    /**
+     * Restores what {@link #write} stored for {@code count} ordinals; fails if it was written with a
+     * different configuration.
+     */
+    void read(DataInput in, int count) throws IOException;
+
+    @FunctionalInterface
+    interface Scorer {
+
+        float score(int ordinal);
+    }
+}
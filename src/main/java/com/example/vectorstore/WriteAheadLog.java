@@ -0,0 +1,184 @@
+package com.example.vectorstore;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of length-prefixed, CRC32C-checked records in {@code wal.log}. {@link #append} writes a
+ * whole group of records and forces it to disk once, so concurrent writers share one fsync. On open the
+ * log is scanned and a torn or corrupt tail (from a crash mid-write) is truncated. Not thread-safe: one
+ * writer thread owns it.
+ */
+@Slf4j
+final class WriteAheadLog implements AutoCloseable {
+
+    static final String FILE = "wal.log";
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private FileChannel channel;
+    private long end;
+
+    WriteAheadLog(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.path = directory.resolve(FILE);
+        this.channel = open(path);
+        this.end = validEnd();
+        if (end < channel.size()) {
+            log.warn("Truncating {} torn bytes from {}", channel.size() - end, path);
+            channel.truncate(end);
+            channel.force(true);
+        }
+    }
+
+    long end() {
+        return end;
+    }
+
+    /**
+     * Appends the records and forces them to disk; returns the offset of each record.
+     */
+    long[] append(List<byte[]> payloads) throws IOException {
+        long[] offsets = new long[payloads.size()];
+        long written = write(channel, end, payloads, offsets);
+        channel.force(false);
+        end = written;
+        return offsets;
+    }
+
+    /**
+     * Visits the records whose offsets lie in {@code [from, to)}.
+     */
+    void read(long from, long to, RecordVisitor visitor) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long position = from;
+        while (position < to) {
+            header.clear();
+            readFully(header, position);
+            byte[] payload = new byte[header.getInt(0)];
+            readFully(ByteBuffer.wrap(payload), position + HEADER_BYTES);
+            visitor.visit(position, payload);
+            position += HEADER_BYTES + payload.length;
+        }
+    }
+
+    /**
+     * Atomically replaces the log with the given records; returns their new offsets. The records are written
+     * and forced through a separate channel while the live one stays untouched, so if anything fails before
+     * the rename the log keeps appending where it was. Once the rename is done the snapshot's channel (which
+     * follows the renamed file) becomes the live one.
+     */
+    long[] rewrite(List<byte[]> payloads) throws IOException {
+        Path temporary = path.resolveSibling(FILE + ".tmp");
+        Files.deleteIfExists(temporary);
+        long[] offsets = new long[payloads.size()];
+        FileChannel snapshot = open(temporary);
+        long written;
+        try {
+            written = write(snapshot, 0, payloads, offsets);
+            snapshot.force(true);
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            snapshot.close();
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        forceDirectory();
+        FileChannel previous = channel;
+        channel = snapshot;
+        end = written;
+        previous.close();
+        return offsets;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the records at {@code position} without forcing them; fills in their offsets and returns the new end.
+     */
+    private static long write(FileChannel target, long position, List<byte[]> payloads, long[] offsets) throws IOException {
+        int total = 0;
+        for (byte[] payload : payloads) total += HEADER_BYTES + payload.length;
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        long next = position;
+        for (int i = 0; i < payloads.size(); i++) {
+            byte[] payload = payloads.get(i);
+            offsets[i] = next;
+            buffer.putInt(payload.length).putInt(checksum(payload)).put(payload);
+            next += HEADER_BYTES + payload.length;
+        }
+        buffer.flip();
+        long at = position;
+        while (buffer.hasRemaining()) at += target.write(buffer, at);
+        return next;
+    }
+
+    /**
+     * Makes the rename durable. Some platforms cannot open a directory for syncing; there the rename
+     * reaches the disk with the file system's next metadata flush, so it is logged rather than failed:
+     * the live channel has to follow the renamed file either way.
+     */
+    private void forceDirectory() {
+        try (FileChannel directory = FileChannel.open(path.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            log.warn("Could not sync directory {} after rewriting {}: {}", path.getParent(), FILE, e.getMessage());
+        }
+    }
+
+    private long validEnd() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long position = 0;
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + HEADER_BYTES + length > size) break;
+            byte[] payload = new byte[length];
+            readFully(ByteBuffer.wrap(payload), position + HEADER_BYTES);
+            if (checksum(payload) != header.getInt(4)) break;
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of " + path);
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(long offset, byte[] payload) throws IOException;
+    }
+}
@@ -0,0 +1,558 @@
+package com.example.vectorstore;
+
+import com.example.exception.ServiceOverloadedException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Durable {@link VectorStore} over in-memory segment stores. {@link #add} embeds on the caller's thread and
+ * hands chunk + embedding records to a single writer thread, which drains everything queued since its last
+ * commit, appends it to a {@link WriteAheadLog} with one fsync, and applies the whole group as one new
+ * segment built off to the side (the recorded vectors are served to the segment, nothing is embedded
+ * twice). Callers return once their group is durable and visible.
+ * <p>
+ * Readers take the current segment list (an immutable snapshot swapped on each commit, never mutated) and
+ * search every segment against one query embedding, so ingestion never holds a lock a query waits on.
+ * Upserts and deletes never touch a published segment's store: each commit publishes a new list in which
+ * the segments holding older copies carry those ids in their tombstone set, and a segment search
+ * over-fetches by its tombstone count and drops them. Segments are merged size-tiered (the newest two once
+ * the newer is at least half the older), rebuilt from their range of the log without the tombstoned
+ * records. Once superseded records outnumber live ones the log is rewritten with only live records. On
+ * startup the log is replayed into one segment.
+ * <p>
+ * A caller waits at most {@code commitTimeout} for its group to commit; if the writer fails, every request
+ * in the group fails with it.
+ */
+@Slf4j
+public class WriteAheadLogVectorStore implements VectorStore, DocumentLookup, AutoCloseable {
+
+    private static final String ADD = "add";
+    private static final String DELETE = "delete";
+
+    private final EmbeddingModel embeddingModel;
+    private final PrecomputedEmbeddingModel segmentEmbeddingModel;
+    private final Function<EmbeddingModel, VectorStore> segmentFactory;
+    private final WriteAheadLog writeAheadLog;
+    private final int maxGroupSize;
+    private final int maxSegments;
+    private final int compactThreshold;
+    private final Duration commitTimeout;
+    private final ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock logLock = new ReentrantLock();
+    private final Map<String, Live> live = new HashMap<>();
+    private final Thread writer;
+    private final Timer commitTimer;
+    private final DistributionSummary groupSize;
+    private volatile List<Segment> segments = List.of();
+    private volatile int size;
+    private volatile boolean closed;
+    private long superseded;
+
+    private WriteAheadLogVectorStore(Builder builder) {
+        this.embeddingModel = builder.embeddingModel;
+        this.segmentEmbeddingModel = new PrecomputedEmbeddingModel(builder.embeddingModel);
+        this.segmentFactory = builder.segmentFactory;
+        this.maxGroupSize = builder.maxGroupSize;
+        this.maxSegments = builder.maxSegments;
+        this.compactThreshold = builder.compactThreshold;
+        this.commitTimeout = builder.commitTimeout;
+        try {
+            this.writeAheadLog = new WriteAheadLog(builder.directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log in " + builder.directory, e);
+        }
+        String name = builder.directory.getFileName().toString();
+        if (builder.meterRegistry != null) {
+            this.commitTimer = Timer.builder("vectorstore.wal.commit")
+                    .description("Group commit latency: log append, fsync and segment build")
+                    .tag("log", name)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(builder.meterRegistry);
+            this.groupSize = DistributionSummary.builder("vectorstore.wal.group.size")
+                    .description("Records per group commit")
+                    .tag("log", name)
+                    .register(builder.meterRegistry);
+            Gauge.builder("vectorstore.wal.segments", this, store -> store.segments.size())
+                    .description("Segments searched per query")
+                    .tag("log", name)
+                    .register(builder.meterRegistry);
+        } else {
+            this.commitTimer = null;
+            this.groupSize = null;
+        }
+        this.writer = Thread.ofPlatform().name("vectorstore-wal-" + name).daemon().start(this::drain);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel, Path directory, Function<EmbeddingModel, VectorStore> segmentFactory) {
+        return new Builder(embeddingModel, directory, segmentFactory);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) return;
+        List<float[]> vectors = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+        List<Entry> entries = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            entries.add(new Entry(ADD, document.getId(), document.getText(), document.getMetadata(), encode(vectors.get(i))));
+        }
+        submit(new Pending(entries, null));
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        if (idList.isEmpty()) return;
+        submit(new Pending(idList.stream().map(id -> new Entry(DELETE, id, null, null, null)).toList(), null));
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        submit(new Pending(List.of(), filterExpression));
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        List<Segment> snapshot = segments;
+        if (snapshot.isEmpty() || request.getTopK() <= 0) return List.of();
+        if (snapshot.size() == 1) return snapshot.getFirst().search(request);
+        float[] query = embeddingModel.embed(request.getQuery());
+        return segmentEmbeddingModel.with(Map.of(request.getQuery(), query), () -> {
+            Map<String, Document> best = new HashMap<>();
+            for (Segment segment : snapshot) {
+                for (Document document : segment.search(request)) {
+                    best.merge(document.getId(), document, (x, y) -> score(x) >= score(y) ? x : y);
+                }
+            }
+            return best.values().stream()
+                    .sorted(Comparator.comparingDouble(WriteAheadLogVectorStore::score).reversed())
+                    .limit(request.getTopK())
+                    .toList();
+        });
+    }
+
+    /**
+     * Looks the ids up in every segment whose store supports it (hnsw segments do), skipping tombstoned copies.
+     */
+    @Override
+    public List<Document> findByIds(String query, Collection<String> ids) {
+        List<Segment> snapshot = segments;
+        if (snapshot.isEmpty() || ids.isEmpty()) return List.of();
+        float[] vector = embeddingModel.embed(query);
+        return segmentEmbeddingModel.with(Map.of(query, vector), () -> {
+            Map<String, Document> found = new HashMap<>();
+            for (Segment segment : snapshot) {
+                if (!(segment.store() instanceof DocumentLookup lookup)) continue;
+                List<String> wanted = ids.stream().filter(id -> !segment.tombstones().contains(id)).toList();
+                for (Document document : lookup.findByIds(query, wanted)) found.put(document.getId(), document);
+            }
+            return List.copyOf(found.values());
+        });
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compacts now: rewrites the log with only live records and replaces every segment with one built from
+     * them, dropping the tombstoned copies the segments still hold.
+     */
+    public void rebuild() {
+        logLock.lock();
+        try {
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact write-ahead log", e);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /**
+     * Visits every live document in log order, e.g. to rebuild a lexical index after a restart.
+     */
+    public void forEachDocument(Consumer<Document> consumer) {
+        logLock.lock();
+        try {
+            writeAheadLog.read(0, writeAheadLog.end(), (offset, payload) -> {
+                Entry entry = decode(payload);
+                if (isLive(entry, offset)) consumer.accept(entry.document());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read write-ahead log", e);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        writer.join();
+        writeAheadLog.close();
+        for (Segment segment : segments) {
+            if (segment.store() instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+
+    private void submit(Pending pending) {
+        if (closed) throw new IllegalStateException("Write-ahead log vector store is closed");
+        queue.add(pending);
+        try {
+            pending.done().get(commitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            // adds and deletes are idempotent, so retrying is safe even if this group commits later
+            throw new ServiceOverloadedException("Timed out after " + commitTimeout + " waiting for the write-ahead log commit",
+                    Duration.ofSeconds(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private void drain() {
+        List<Pending> group = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(group, maxGroupSize - 1);
+            try {
+                if (commitTimer == null) commit(group);
+                else commitTimer.recordCallable(() -> {
+                    commit(group);
+                    return null;
+                });
+                group.forEach(pending -> pending.done().complete(null));
+            } catch (Throwable e) {
+                // the writer must outlive a failed group, or every later caller would wait for nothing
+                log.error("Group commit of {} requests failed", group.size(), e);
+                RuntimeException failure = e instanceof IOException io ? new UncheckedIOException("Write-ahead log append failed", io)
+                        : e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+                group.forEach(pending -> pending.done().completeExceptionally(failure));
+            }
+            group.clear();
+        }
+        queue.drainTo(group);
+        IllegalStateException stopped = new IllegalStateException("Write-ahead log writer stopped");
+        group.forEach(pending -> pending.done().completeExceptionally(stopped));
+    }
+
+    private void commit(List<Pending> group) throws IOException {
+        logLock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (Pending pending : group) {
+                if (pending.filter() == null) {
+                    entries.addAll(pending.entries());
+                    continue;
+                }
+                live.forEach((id, current) -> {
+                    if (FilterExpressionEvaluator.matches(pending.filter(), current.metadata())) {
+                        entries.add(new Entry(DELETE, id, null, null, null));
+                    }
+                });
+            }
+            if (entries.isEmpty()) return;
+            if (groupSize != null) groupSize.record(entries.size());
+
+            List<byte[]> payloads = new ArrayList<>(entries.size());
+            for (Entry entry : entries) payloads.add(objectMapper.writeValueAsBytes(entry));
+            long from = writeAheadLog.end();
+            long[] offsets = writeAheadLog.append(payloads);
+
+            Map<String, Entry> added = new LinkedHashMap<>();
+            Map<String, Long> stale = new HashMap<>();
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                Live previous = apply(entry, offsets[i]);
+                // copies written earlier in this group are not in any segment yet
+                if (previous != null && previous.offset() < from) stale.put(entry.id(), previous.offset());
+                added.remove(entry.id());
+                if (ADD.equals(entry.op())) added.put(entry.id(), entry);
+            }
+
+            List<Segment> next = new ArrayList<>(segments.size() + 1);
+            for (Segment segment : segments) next.add(segment.tombstone(stale));
+            if (!added.isEmpty()) next.add(build(from, writeAheadLog.end(), List.copyOf(added.values())));
+            segments = List.copyOf(next);
+            size = live.size();
+
+            if (superseded > Math.max(compactThreshold, live.size())) compact();
+            else mergeTiers();
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /**
+     * Replays the log into the live set, then builds one segment from it.
+     */
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        writeAheadLog.read(0, writeAheadLog.end(), (offset, payload) -> apply(decode(payload), offset));
+        if (superseded > Math.max(compactThreshold, live.size())) {
+            compact();
+        } else if (!live.isEmpty()) {
+            segments = List.of(build(0, writeAheadLog.end(), liveEntries(0, writeAheadLog.end())));
+        }
+        size = live.size();
+        if (size > 0) {
+            log.info("Recovered {} documents from the write-ahead log in {} ms", size, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Applies one record to the live set; returns the copy it replaced or deleted, if any.
+     */
+    private Live apply(Entry entry, long offset) {
+        Live previous = ADD.equals(entry.op()) ? live.put(entry.id(), new Live(offset, entry.metadata())) : live.remove(entry.id());
+        if (previous != null) superseded++;
+        if (DELETE.equals(entry.op())) superseded++;
+        return previous;
+    }
+
+    private boolean isLive(Entry entry, long offset) {
+        Live current = live.get(entry.id());
+        return ADD.equals(entry.op()) && current != null && current.offset() == offset;
+    }
+
+    private List<Entry> liveEntries(long from, long to) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        writeAheadLog.read(from, to, (offset, payload) -> {
+            Entry entry = decode(payload);
+            if (isLive(entry, offset)) entries.add(entry);
+        });
+        return entries;
+    }
+
+    private Segment build(long from, long to, List<Entry> entries) {
+        VectorStore store = segmentFactory.apply(segmentEmbeddingModel);
+        if (!entries.isEmpty()) {
+            Map<String, float[]> vectors = new HashMap<>(entries.size() * 2);
+            List<Document> documents = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                vectors.put(entry.text(), decode(entry.vector()));
+                documents.add(entry.document());
+            }
+            segmentEmbeddingModel.with(vectors, () -> store.add(documents));
+        }
+        return new Segment(store, from, to, entries.size(), Set.of());
+    }
+
+    private void mergeTiers() throws IOException {
+        List<Segment> current = segments;
+        while (current.size() > 1) {
+            Segment last = current.getLast();
+            Segment previous = current.get(current.size() - 2);
+            if (current.size() <= maxSegments && last.liveDocuments() * 2 < previous.liveDocuments()) break;
+            List<Segment> next = new ArrayList<>(current.subList(0, current.size() - 2));
+            next.add(build(previous.from(), last.to(), liveEntries(previous.from(), last.to())));
+            current = List.copyOf(next);
+            segments = current;
+        }
+    }
+
+    /**
+     * Rewrites the log with only live records and replaces every segment with one built from them.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        List<Entry> entries = liveEntries(0, writeAheadLog.end());
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        for (Entry entry : entries) payloads.add(objectMapper.writeValueAsBytes(entry));
+        long before = writeAheadLog.end();
+        long[] offsets = writeAheadLog.rewrite(payloads);
+        for (int i = 0; i < entries.size(); i++) {
+            live.put(entries.get(i).id(), new Live(offsets[i], entries.get(i).metadata()));
+        }
+        superseded = 0;
+        segments = List.of(build(0, writeAheadLog.end(), entries));
+        log.info("Compacted write-ahead log from {} to {} bytes ({} documents) in {} ms",
+                before, writeAheadLog.end(), entries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Entry decode(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, Entry.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt write-ahead log record", e);
+        }
+    }
+
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static double score(Document document) {
+        return document.getScore() == null ? 0 : document.getScore();
+    }
+
+    /**
+     * One log record; {@code vector} is little-endian float32, base64 in the JSON payload.
+     */
+    private record Entry(String op, String id, String text, Map<String, Object> metadata, byte[] vector) {
+
+        Document document() {
+            return Document.builder().id(id).text(text).metadata(metadata == null ? Map.of() : metadata).build();
+        }
+    }
+
+    private record Live(long offset, Map<String, Object> metadata) {
+    }
+
+    private record Pending(List<Entry> entries, Filter.Expression filter, CompletableFuture<Void> done) {
+
+        Pending(List<Entry> entries, Filter.Expression filter) {
+            this(entries, filter, new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * An immutable-once-published store built from the log records in {@code [from, to)}, minus the ids in
+     * {@code tombstones}: copies it holds that later records replaced or deleted.
+     */
+    private record Segment(VectorStore store, long from, long to, int documents, Set<String> tombstones) {
+
+        int liveDocuments() {
+            return documents - tombstones.size();
+        }
+
+        /**
+         * This segment with the stale copies that lie in its range tombstoned, or itself if there are none.
+         */
+        Segment tombstone(Map<String, Long> staleOffsets) {
+            Set<String> next = null;
+            for (Map.Entry<String, Long> stale : staleOffsets.entrySet()) {
+                if (stale.getValue() < from || stale.getValue() >= to) continue;
+                if (next == null) next = new HashSet<>(tombstones);
+                next.add(stale.getKey());
+            }
+            return next == null ? this : new Segment(store, from, to, documents, Set.copyOf(next));
+        }
+
+        List<Document> search(SearchRequest request) {
+            if (tombstones.isEmpty()) return store.similaritySearch(request);
+            List<Document> found = store.similaritySearch(SearchRequest.builder()
+                    .query(request.getQuery())
+                    .topK(request.getTopK() + tombstones.size())
+                    .similarityThreshold(request.getSimilarityThreshold())
+                    .filterExpression(request.getFilterExpression())
+                    .build());
+            return found.stream().filter(document -> !tombstones.contains(document.getId())).limit(request.getTopK()).toList();
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel embeddingModel;
+        private final Path directory;
+        private final Function<EmbeddingModel, VectorStore> segmentFactory;
+        private int maxGroupSize = 1024;
+        private int maxSegments = 8;
+        private int compactThreshold = 10_000;
+        private Duration commitTimeout = Duration.ofSeconds(60);
+        private MeterRegistry meterRegistry;
+
+        private Builder(EmbeddingModel embeddingModel, Path directory, Function<EmbeddingModel, VectorStore> segmentFactory) {
+            this.embeddingModel = embeddingModel;
+            this.directory = directory;
+            this.segmentFactory = segmentFactory;
+        }
+
+        /**
+         * Most queued requests folded into one append and fsync.
+         */
+        public Builder maxGroupSize(int maxGroupSize) {
+            if (maxGroupSize < 1) throw new IllegalArgumentException("maxGroupSize must be positive");
+            this.maxGroupSize = maxGroupSize;
+            return this;
+        }
+
+        public Builder maxSegments(int maxSegments) {
+            if (maxSegments < 1) throw new IllegalArgumentException("maxSegments must be positive");
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        /**
+         * Superseded records tolerated in the log (and at least as many as live ones) before it is rewritten.
+         */
+        public Builder compactThreshold(int compactThreshold) {
+            this.compactThreshold = compactThreshold;
+            return this;
+        }
+
+        /**
+         * Longest a caller waits for its group to be appended, synced and published.
+         */
+        public Builder commitTimeout(Duration commitTimeout) {
+            this.commitTimeout = commitTimeout;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public WriteAheadLogVectorStore build() {
+            return new WriteAheadLogVectorStore(this);
+        }
+    }
+}